@@ -0,0 +1,44 @@
+package com.tracker;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.util.List;
+
+/**
+ * BenchmarkDatabase:
+ * A throwaway SQLite database in a temp directory, with the app's schema and
+ * optionally pre-filled with synthetic rows.
+ */
+class BenchmarkDatabase implements AutoCloseable {
+    final Path dir;
+    final ConnectionPool pool;
+    final ExpenseDAO dao;
+
+    BenchmarkDatabase(AutoCategorizer categorizer) {
+        try {
+            dir = Files.createTempDirectory("expense-bench");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pool = new ConnectionPool("jdbc:sqlite:" + dir.resolve("bench.db"));
+        dao = new ExpenseDAO(pool, categorizer);
+        dao.createTable();
+    }
+
+    BenchmarkDatabase fill(List<Expense> rows) {
+        dao.importExpenses(rows, ExpenseDAO.DEFAULT_BATCH_SIZE);
+        return this;
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+        try (var files = Files.list(dir)) {
+            for (Path p : files.toList()) Files.deleteIfExists(p);
+            Files.deleteIfExists(dir);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
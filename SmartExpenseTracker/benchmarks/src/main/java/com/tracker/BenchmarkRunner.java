@@ -0,0 +1,26 @@
+package com.tracker;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * BenchmarkRunner:
+ * Entry point of benchmarks.jar. Accepts the usual JMH command line (benchmark
+ * regex, -p rows=..., -f, -wi, ...) but writes results as JSON to
+ * target/jmh-result.json unless -rf/-rff say otherwise, so runs can be compared
+ * across releases (e.g. with jmh.morethan.io).
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(cli);
+        if (!cli.getResultFormat().hasValue()) options.resultFormat(ResultFormatType.JSON);
+        if (!cli.getResult().hasValue()) options.result("target/jmh-result.json");
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,72 @@
+package com.tracker;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BudgetBenchmark:
+ * Cost of the budget check done after every insert, and of the full evaluation done
+ * after an import, over a pre-filled database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BudgetBenchmark {
+    @Param({"100000"})
+    public int rows;
+
+    private BenchmarkDatabase db;
+    private BudgetManager budgets;
+    private BudgetEngine engine;
+    private Expense[] inserts;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticData data = new SyntheticData(3, 2_000, 1.0, 90);
+        db = new BenchmarkDatabase(new AutoCategorizer()).fill(data.expenses(rows));
+        budgets = new BudgetManager(db.pool);
+        for (String c : SyntheticData.CATEGORIES) budgets.setBudget(c, 50_000);
+        engine = new BudgetEngine(db.dao, budgets, List.of(
+                new BudgetRule(50, BudgetPeriod.MONTHLY),
+                new BudgetRule(80, BudgetPeriod.MONTHLY),
+                new BudgetRule(100, BudgetPeriod.MONTHLY),
+                new BudgetRule(100, BudgetPeriod.WEEKLY),
+                new BudgetRule(100, BudgetPeriod.ROLLING_30_DAYS)));
+        engine.reload();
+        inserts = data.expenses(1024).toArray(new Expense[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.close();
+    }
+
+    @Benchmark
+    public void onInsert() {
+        // Spend is only tracked in memory here; the rows are never written.
+        engine.expenseInserted(inserts[next++ & (inserts.length - 1)]);
+    }
+
+    @Benchmark
+    public double getBudget() {
+        return budgets.getBudget(SyntheticData.CATEGORIES[next++ & 7]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<BudgetAlert> evaluateAll() {
+        return engine.evaluateAll();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void reload() {
+        engine.reload();
+    }
+}
@@ -0,0 +1,61 @@
+package com.tracker;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CategorizerBenchmark:
+ * suggestCategory as the learned model grows, plus learn() and batch categorization.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CategorizerBenchmark {
+    @Param({"0", "1000", "10000"})
+    public int learned;
+
+    @Param({"2000"})
+    public int vocabulary;
+
+    private AutoCategorizer categorizer;
+    private SyntheticData data;
+    private String[] descriptions;
+    private List<String> batch;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new SyntheticData(11, vocabulary, 1.0, 365);
+        categorizer = new AutoCategorizer();
+        categorizer.setMaxLearned(Math.max(1, learned));
+        for (int i = 0; i < learned; i++) {
+            Expense e = data.expense();
+            categorizer.learn(e.getDescription(), e.getCategory(), e.getAmount());
+        }
+        descriptions = new String[1024];
+        for (int i = 0; i < descriptions.length; i++) descriptions[i] = data.description();
+        batch = List.of(descriptions);
+    }
+
+    @Benchmark
+    public String suggestCategory() {
+        return categorizer.suggestCategory(descriptions[next++ & (descriptions.length - 1)]);
+    }
+
+    @Benchmark
+    public void learn() {
+        String d = descriptions[next++ & (descriptions.length - 1)];
+        categorizer.learn(d, "Food", 100);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public List<String> categorizeAll() {
+        return categorizer.categorizeAll(batch);
+    }
+}
@@ -0,0 +1,63 @@
+package com.tracker;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ColumnsBenchmark:
+ * Totals and group-bys over {@code rows} expenses held as Expense objects (summed
+ * with streams, as the UI used to) versus ExpenseColumns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColumnsBenchmark {
+    @Param({"1000000"})
+    public int rows;
+
+    private List<Expense> objects;
+    private ExpenseColumns columns;
+    private DateRange month;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objects = SyntheticData.defaults(5).expenses(rows);
+        columns = new ExpenseColumns(rows);
+        objects.forEach(columns::add);
+        month = DateRange.currentMonth();
+    }
+
+    @Benchmark
+    public double totalObjects() {
+        return objects.stream().mapToDouble(Expense::getAmount).sum();
+    }
+
+    @Benchmark
+    public double totalColumns() {
+        return columns.total();
+    }
+
+    @Benchmark
+    public Map<String, Double> totalsByCategoryObjects() {
+        return objects.stream().filter(e -> month.contains(e.getDate()))
+                .collect(java.util.stream.Collectors.groupingBy(Expense::getCategory,
+                        java.util.stream.Collectors.summingDouble(Expense::getAmount)));
+    }
+
+    @Benchmark
+    public Map<String, Double> totalsByCategoryColumns() {
+        return columns.totalsByCategory(month);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int[] descriptionContainsColumns() {
+        return columns.descriptionContains("uber");
+    }
+}
@@ -0,0 +1,76 @@
+package com.tracker;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DaoBenchmark:
+ * ExpenseDAO read paths against a pre-filled database of {@code rows} expenses:
+ * full load, category totals (cached and per month), a year's trend from the
+ * rollup tables, and FTS search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DaoBenchmark {
+    @Param({"10000", "100000"})
+    public int rows;
+
+    @Param({"1.0"})
+    public double categorySkew;
+
+    private BenchmarkDatabase db;
+    private SyntheticData data;
+    private String[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new SyntheticData(42, 2_000, categorySkew, 365);
+        db = new BenchmarkDatabase(new AutoCategorizer()).fill(data.expenses(rows));
+        queries = new String[64];
+        for (int i = 0; i < queries.length; i++) queries[i] = data.word().substring(0, 3);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.close();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Expense> getAllExpenses() {
+        return db.dao.getAllExpenses();
+    }
+
+    @Benchmark
+    public Map<String, Double> getCategoryTotals() {
+        return db.dao.getCategoryTotals();
+    }
+
+    @Benchmark
+    public Map<String, Double> getCategoryTotalsThisMonth() {
+        return db.dao.getCategoryTotals(DateRange.currentMonth());
+    }
+
+    @Benchmark
+    public List<Trends.Line> dailyTrendYear() {
+        LocalDate today = LocalDate.now();
+        return Trends.daily(db.dao, new DateRange(today.minusYears(1), today.plusDays(1)), 250);
+    }
+
+    @Benchmark
+    public void searchFirstPage(Blackhole bh) {
+        String q = queries[next++ & (queries.length - 1)];
+        bh.consume(db.dao.countExpenses(q));
+        bh.consume(db.dao.getExpensesAfter(q, 0, PagedExpenseList.PAGE_SIZE));
+    }
+}
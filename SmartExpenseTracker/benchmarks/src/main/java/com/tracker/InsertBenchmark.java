@@ -0,0 +1,58 @@
+package com.tracker;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InsertBenchmark:
+ * Write throughput in rows per second: single-row inserts, and bulk imports of
+ * {@code batch} rows with the category left blank for half of them (so the
+ * categorizer runs too). Each iteration starts from an empty database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertBenchmark {
+    private static final int BATCH = 1_000;
+
+    private BenchmarkDatabase db;
+    private List<Expense> batch;
+    private SyntheticData data;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        data = SyntheticData.defaults(7);
+        List<Expense> rows = data.expenses(BATCH);
+        for (int i = 0; i < rows.size(); i += 2) {
+            Expense e = rows.get(i);
+            rows.set(i, new Expense(0, e.getDescription(), "", e.getAmount(), e.getDate()));
+        }
+        batch = rows;
+    }
+
+    @Setup(Level.Iteration)
+    public void open() {
+        db = new BenchmarkDatabase(new AutoCategorizer());
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() {
+        db.close();
+    }
+
+    @Benchmark
+    public void insertExpense() {
+        db.dao.insertExpense(data.expense());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public ImportResult importBatch() {
+        return db.dao.importExpenses(batch, ExpenseDAO.DEFAULT_BATCH_SIZE);
+    }
+}
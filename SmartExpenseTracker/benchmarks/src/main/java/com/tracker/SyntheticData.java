@@ -0,0 +1,90 @@
+package com.tracker;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * SyntheticData:
+ * Deterministic generator of realistic-looking expenses for benchmarks.
+ *
+ * Descriptions combine a merchant word (drawn from a vocabulary of configurable size,
+ * seeded with the categorizer's keywords so some rows match them) with a random
+ * suffix. Categories follow a Zipf distribution: skew 0 is uniform, and larger values
+ * concentrate rows in the first few categories, as real spending does. Dates are
+ * spread over the last {@code days} days.
+ */
+public class SyntheticData {
+    public static final String[] CATEGORIES = {
+            "Food", "Transport", "Utilities", "Entertainment", "Health", "Shopping", "Education", "Other"
+    };
+    private static final String[] SEED_WORDS = {
+            "zomato", "swiggy", "uber", "metro", "petrol", "wifi", "electricity", "netflix",
+            "spotify", "pharmacy", "gym", "amazon", "flipkart", "tuition", "book", "grocery"
+    };
+
+    private final Random random;
+    private final String[] vocabulary;
+    private final double[] categoryCdf;
+    private final int days;
+
+    public SyntheticData(long seed, int vocabularySize, double categorySkew, int days) {
+        this.random = new Random(seed);
+        this.vocabulary = buildVocabulary(vocabularySize);
+        this.categoryCdf = zipfCdf(CATEGORIES.length, categorySkew);
+        this.days = Math.max(1, days);
+    }
+
+    /** 2,000 words, moderate skew, one year of dates. */
+    public static SyntheticData defaults(long seed) {
+        return new SyntheticData(seed, 2_000, 1.0, 365);
+    }
+
+    public String description() {
+        return vocabulary[random.nextInt(vocabulary.length)] + " " + Integer.toString(random.nextInt(1 << 16), 36);
+    }
+
+    public String category() {
+        double u = random.nextDouble();
+        int i = Arrays.binarySearch(categoryCdf, u);
+        return CATEGORIES[Math.min(CATEGORIES.length - 1, i >= 0 ? i : -i - 1)];
+    }
+
+    public Expense expense() {
+        double amount = Math.round((10 + random.nextDouble() * 4_990) * 100) / 100.0;
+        return new Expense(0, description(), category(), amount, LocalDate.now().minusDays(random.nextInt(days)));
+    }
+
+    public List<Expense> expenses(int count) {
+        List<Expense> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) rows.add(expense());
+        return rows;
+    }
+
+    /** A word from the vocabulary, for search benchmarks. */
+    public String word() {
+        return vocabulary[random.nextInt(vocabulary.length)];
+    }
+
+    private String[] buildVocabulary(int size) {
+        size = Math.max(size, SEED_WORDS.length);
+        String[] words = Arrays.copyOf(SEED_WORDS, size);
+        for (int i = SEED_WORDS.length; i < size; i++) {
+            StringBuilder w = new StringBuilder();
+            int len = 4 + random.nextInt(7);
+            for (int j = 0; j < len; j++) w.append((char) ('a' + random.nextInt(26)));
+            words[i] = w.toString();
+        }
+        return words;
+    }
+
+    private static double[] zipfCdf(int n, double skew) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1 / Math.pow(k + 1, skew);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < n; k++) cdf[k] /= sum;
+        return cdf;
+    }
+}
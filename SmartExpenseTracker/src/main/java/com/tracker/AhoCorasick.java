@@ -0,0 +1,141 @@
+package com.tracker;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * AhoCorasick:
+ * Immutable multi-pattern matcher. All patterns are compiled into one automaton so a
+ * text is scanned once, in time linear in its length plus the number of matches,
+ * however many patterns there are.
+ *
+ * The trie is stored in compressed-row form: the outgoing edges of node n are
+ * {@code edgeChar/edgeTarget[edgeStart[n] .. edgeStart[n + 1])}, sorted by character.
+ */
+final class AhoCorasick {
+    private final String[] patterns;
+    private final int[] edgeStart;
+    private final char[] edgeChar;
+    private final int[] edgeTarget;
+    private final int[] fail;
+    private final int[] terminal;   // pattern index ending at this node, or -1
+    private final int[] outputLink; // nearest terminal node along the fail chain, or -1
+
+    AhoCorasick(Collection<String> patterns) {
+        this.patterns = patterns.toArray(new String[0]);
+
+        // 1. Plain trie with map-based children.
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<Integer> term = new ArrayList<>();
+        children.add(new TreeMap<>());
+        term.add(-1);
+        for (int p = 0; p < this.patterns.length; p++) {
+            String s = this.patterns[p];
+            int node = 0;
+            for (int i = 0; i < s.length(); i++) {
+                Integer next = children.get(node).get(s.charAt(i));
+                if (next == null) {
+                    next = children.size();
+                    children.get(node).put(s.charAt(i), next);
+                    children.add(new TreeMap<>());
+                    term.add(-1);
+                }
+                node = next;
+            }
+            term.set(node, p);
+        }
+
+        // 2. Flatten into sorted edge arrays.
+        int n = children.size();
+        edgeStart = new int[n + 1];
+        int edges = 0;
+        for (int i = 0; i < n; i++) {
+            edgeStart[i] = edges;
+            edges += children.get(i).size();
+        }
+        edgeStart[n] = edges;
+        edgeChar = new char[edges];
+        edgeTarget = new int[edges];
+        terminal = new int[n];
+        for (int i = 0; i < n; i++) {
+            int e = edgeStart[i];
+            for (var entry : children.get(i).entrySet()) {
+                edgeChar[e] = entry.getKey();
+                edgeTarget[e] = entry.getValue();
+                e++;
+            }
+            terminal[i] = term.get(i);
+        }
+
+        // 3. Failure and output links, breadth-first.
+        fail = new int[n];
+        outputLink = new int[n];
+        outputLink[0] = -1;
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        for (int e = edgeStart[0]; e < edgeStart[1]; e++) {
+            int child = edgeTarget[e];
+            fail[child] = 0;
+            outputLink[child] = -1;
+            queue[tail++] = child;
+        }
+        while (head < tail) {
+            int node = queue[head++];
+            for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++) {
+                int child = edgeTarget[e];
+                char c = edgeChar[e];
+                int f = fail[node];
+                int next;
+                while ((next = child(f, c)) < 0 && f != 0) {
+                    f = fail[f];
+                }
+                fail[child] = next < 0 ? 0 : next;
+                int fn = fail[child];
+                outputLink[child] = terminal[fn] >= 0 ? fn : outputLink[fn];
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    int size() {
+        return patterns.length;
+    }
+
+    String pattern(int index) {
+        return patterns[index];
+    }
+
+    List<String> patterns() {
+        return Arrays.asList(patterns);
+    }
+
+    /**
+     * Reports the index of every pattern occurrence in {@code text}.
+     */
+    void match(CharSequence text, IntConsumer onMatch) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next;
+            while ((next = child(state, c)) < 0 && state != 0) {
+                state = fail[state];
+            }
+            state = next < 0 ? 0 : next;
+            for (int out = terminal[state] >= 0 ? state : outputLink[state]; out >= 0; out = outputLink[out]) {
+                onMatch.accept(terminal[out]);
+            }
+        }
+    }
+
+    private int child(int node, char c) {
+        int lo = edgeStart[node], hi = edgeStart[node + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char m = edgeChar[mid];
+            if (m < c) lo = mid + 1;
+            else if (m > c) hi = mid - 1;
+            else return edgeTarget[mid];
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,273 @@
+package com.tracker;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ApiServer:
+ * Embedded read-only JSON API over the expense store, for other local tools.
+ *
+ * <pre>
+ * GET /api/expenses?q=&amp;after=&amp;limit=    keyset page: {"items":[...],"next":id|null}
+ * GET /api/search?q=&amp;limit=               best matches first (BM25): {"items":[...]}
+ * GET /api/totals[?month=yyyy-MM | from=&amp;to=]  {"category":total,...}
+ * GET /api/budgets                          {"category":limit,...}
+ * GET /api/budgets/check                    [{"category":..,"exceeded":..},...]
+ * GET /api/suggest?description=             {"category":..,"amount":..}
+ * </pre>
+ *
+ * Requests are served concurrently by a fixed pool of worker threads, each reading
+ * through the shared reader pool. Data responses carry an ETag derived from a
+ * version counter that moves on every expense change event and budget update, and
+ * are cached by URI until it moves; a matching {@code If-None-Match} gets a 304
+ * without touching the database. Writes made by other processes are picked up once
+ * this process sees a change itself.
+ */
+@SuppressWarnings("try") // Metrics.Sample
+public class ApiServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8085;
+    private static final int MAX_PAGE = 1000;
+    private static final int MAX_CACHED = 256;
+    private static final Map<String, String> TIMERS = Map.of(
+            "/api/expenses", "http.expenses",
+            "/api/search", "http.search",
+            "/api/totals", "http.totals",
+            "/api/budgets", "http.budgets",
+            "/api/budgets/check", "http.budgets.check",
+            "/api/suggest", "http.suggest");
+
+    private record Cached(String version, byte[] body) {
+    }
+
+    private final ExpenseDAO dao;
+    private final BudgetManager budgets;
+    private final BudgetEngine engine;
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final AtomicLong dataVersion = new AtomicLong();
+    // Versions restart with the process, so ETags carry its start time as well.
+    private final String epoch = Long.toHexString(System.currentTimeMillis());
+    private final ExpenseListener versionBump = new ExpenseListener() {
+        @Override
+        public void expenseInserted(Expense e) { dataVersion.incrementAndGet(); }
+
+        @Override
+        public void expenseUpdated(Expense before, Expense after) { dataVersion.incrementAndGet(); }
+
+        @Override
+        public void expenseDeleted(Expense e) { dataVersion.incrementAndGet(); }
+
+        @Override
+        public void expensesReloaded() { dataVersion.incrementAndGet(); }
+    };
+    private final Map<String, Cached> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                    return size() > MAX_CACHED;
+                }
+            });
+
+    public ApiServer(ExpenseDAO dao, BudgetManager budgets, BudgetEngine engine, int port) throws IOException {
+        this(dao, budgets, engine, port, Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+    }
+
+    public ApiServer(ExpenseDAO dao, BudgetManager budgets, BudgetEngine engine, int port, int threads) throws IOException {
+        this.dao = dao;
+        this.budgets = budgets;
+        this.engine = engine;
+        AtomicInteger n = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "http-worker-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 128);
+        server.setExecutor(workers);
+        server.createContext("/api/", this::handle);
+        dao.addListener(versionBump);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        dao.removeListener(versionBump);
+        server.stop(1);
+        workers.shutdown();
+    }
+
+    // === Routing ===
+
+    private void handle(HttpExchange ex) throws IOException {
+        String path = ex.getRequestURI().getPath();
+        String route = path.replaceAll("/+$", "");
+        // Timer names come from the fixed route table, never from the client's path.
+        try (Metrics.Sample t = Metrics.time(TIMERS.getOrDefault(route, "http.unknown"))) {
+            if (!"GET".equals(ex.getRequestMethod()) && !"HEAD".equals(ex.getRequestMethod())) {
+                error(ex, 405, "Only GET is supported");
+                return;
+            }
+            Map<String, String> params = query(ex.getRequestURI().getRawQuery());
+            switch (route) {
+                case "/api/expenses" -> cached(ex, Long.toHexString(dataVersion.get()), () -> expenses(params));
+                case "/api/search" -> cached(ex, Long.toHexString(dataVersion.get()), () -> search(params));
+                case "/api/totals" -> cached(ex, Long.toHexString(dataVersion.get()), () -> totals(params));
+                case "/api/budgets" -> cached(ex, Long.toHexString(budgets.getVersion()), () -> Json.amounts(new StringBuilder(),
+                        new TreeMap<>(budgets.getAllBudgets())).toString());
+                // Alerts also depend on today's date through the budget periods.
+                case "/api/budgets/check" -> cached(ex, Long.toHexString(dataVersion.get()) + "."
+                        + Long.toHexString(budgets.getVersion()) + "." + LocalDate.now().toEpochDay(), this::check);
+                case "/api/suggest" -> send(ex, 200, null, suggest(params).getBytes(StandardCharsets.UTF_8));
+                default -> error(ex, 404, "No such resource: " + path);
+            }
+        } catch (IllegalArgumentException | DateTimeException e) {
+            error(ex, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            Metrics.error("http", e);
+            error(ex, 500, "Internal error");
+        } finally {
+            ex.close();
+        }
+    }
+
+    private interface Body {
+        String render();
+    }
+
+    /**
+     * Serves {@code body} for the current data {@code version}, rendering it only if
+     * the cached copy for this URI is from an older version.
+     */
+    private void cached(HttpExchange ex, String version, Body body) throws IOException {
+        String etag = "\"" + epoch + "-" + version + "\"";
+        if (etag.equals(ex.getRequestHeaders().getFirst("If-None-Match"))) {
+            ex.getResponseHeaders().set("ETag", etag);
+            ex.sendResponseHeaders(304, -1);
+            return;
+        }
+        String key = ex.getRequestURI().toString();
+        Cached hit = cache.get(key);
+        if (hit == null || !hit.version().equals(version)) {
+            hit = new Cached(version, body.render().getBytes(StandardCharsets.UTF_8));
+            cache.put(key, hit);
+        } else {
+            Metrics.counter("http.cacheHits").increment();
+        }
+        send(ex, 200, etag, hit.body());
+    }
+
+    // === Resources ===
+
+    private String expenses(Map<String, String> params) {
+        String q = params.getOrDefault("q", "");
+        int after = intParam(params, "after", 0);
+        int limit = Math.min(MAX_PAGE, Math.max(1, intParam(params, "limit", 100)));
+        List<Expense> page = dao.getExpensesAfter(q, after, limit);
+        StringBuilder sb = new StringBuilder(64 + page.size() * 96).append("{\"items\":");
+        Json.expenses(sb, page).append(",\"next\":");
+        sb.append(page.size() == limit ? String.valueOf(page.get(page.size() - 1).getId()) : "null");
+        return sb.append('}').toString();
+    }
+
+    // Best matches first; unlike /api/expenses there is no next page, see ExpenseDAO.getExpensesAfter.
+    private String search(Map<String, String> params) {
+        String q = params.get("q");
+        if (q == null || q.isBlank()) throw new IllegalArgumentException("q is required");
+        int limit = Math.min(MAX_PAGE, Math.max(1, intParam(params, "limit", 20)));
+        StringBuilder sb = new StringBuilder("{\"items\":");
+        return Json.expenses(sb, dao.searchRanked(q, limit)).append('}').toString();
+    }
+
+    private String totals(Map<String, String> params) {
+        DateRange range = range(params);
+        Map<String, Double> totals = range == null ? dao.getCategoryTotals() : dao.getCategoryTotals(range);
+        return Json.amounts(new StringBuilder(), new TreeMap<>(totals)).toString();
+    }
+
+    private String check() {
+        StringBuilder sb = new StringBuilder("[");
+        List<BudgetAlert> alerts = engine.evaluateAll();
+        for (int i = 0; i < alerts.size(); i++) {
+            if (i > 0) sb.append(',');
+            Json.alert(sb, alerts.get(i));
+        }
+        return sb.append(']').toString();
+    }
+
+    private String suggest(Map<String, String> params) {
+        String desc = params.get("description");
+        if (desc == null || desc.isBlank()) throw new IllegalArgumentException("description is required");
+        AutoCategorizer categorizer = dao.getCategorizer();
+        StringBuilder sb = new StringBuilder("{\"category\":");
+        Json.string(sb, categorizer.suggestCategory(desc)).append(",\"amount\":");
+        return Json.number(sb, categorizer.suggestAmount(desc)).append('}').toString();
+    }
+
+    // === HTTP helpers ===
+
+    private static DateRange range(Map<String, String> params) {
+        if (params.containsKey("month")) return DateRange.month(YearMonth.parse(params.get("month")));
+        String from = params.get("from"), to = params.get("to");
+        if (from == null && to == null) return null;
+        return DateRange.of(from == null ? LocalDate.of(1970, 1, 1) : LocalDate.parse(from),
+                to == null ? LocalDate.now() : LocalDate.parse(to));
+    }
+
+    private static int intParam(Map<String, String> params, String name, int def) {
+        String v = params.get(name);
+        return v == null || v.isEmpty() ? def : Integer.parseInt(v);
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> params = new HashMap<>();
+        if (raw == null || raw.isEmpty()) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String k = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String v = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(k, v);
+        }
+        return params;
+    }
+
+    private static void error(HttpExchange ex, int status, String message) throws IOException {
+        StringBuilder sb = new StringBuilder("{\"error\":");
+        Json.string(sb, message).append('}');
+        send(ex, status, null, sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange ex, int status, String etag, byte[] body) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if (etag != null) {
+            ex.getResponseHeaders().set("ETag", etag);
+            ex.getResponseHeaders().set("Cache-Control", "no-cache"); // revalidate with If-None-Match
+        }
+        boolean head = "HEAD".equals(ex.getRequestMethod());
+        ex.sendResponseHeaders(status, head ? -1 : body.length);
+        if (!head) {
+            try (OutputStream os = ex.getResponseBody()) {
+                os.write(body);
+            }
+        }
+    }
+}
@@ -1,17 +1,31 @@
 package com.tracker;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * AutoCategorizer:
  * Suggests a category (and optionally amount) based on expense description.
  * Learns from past user data to improve future suggestions.
+ *
+ * Instances are thread-safe. Suggestions never lock: they read the learned-pattern
+ * automata through an immutable snapshot and the learned entries and amount
+ * statistics from concurrent maps. {@link #learn} updates statistics per category
+ * (copy-on-write, striped by the map) and takes a single lock only to update the
+ * pattern set and its recency order.
+ *
+ * The learned model is bounded: only the {@link #DEFAULT_MAX_LEARNED} most recently
+ * learned descriptions are kept, and amounts are folded into running per-category
+ * statistics. Once {@link #attach} is called, the model is loaded from that store
+ * and {@link #flush} writes back whatever changed since the last flush.
  */
 public class AutoCategorizer {
+    public static final int DEFAULT_MAX_LEARNED = 10_000;
 
-    // Stores learned patterns from user input
-    private static final Map<String, String> learnedMap = new HashMap<>(); // desc -> category
-    private static final Map<String, List<Double>> categoryAmounts = new HashMap<>(); // category -> past amounts
+    private static final AutoCategorizer SHARED = new AutoCategorizer();
+    private static final Metrics.Timer SUGGEST_TIMER = Metrics.timer("categorizer.suggest");
+    private static final Metrics.Timer LEARN_TIMER = Metrics.timer("categorizer.learn");
 
     // Predefined keyword map for default suggestions
     private static final Map<String, List<String>> KEYWORDS = Map.of(
@@ -24,69 +38,279 @@ public class AutoCategorizer {
             "Education", List.of("book", "tuition", "course", "school", "college", "exam", "fees")
     );
 
+    // All default keywords compiled into one automaton; keyword -> category
+    private static final Map<String, String> keywordCategory = new HashMap<>();
+    private static final AhoCorasick keywordMatcher;
+
+    static {
+        KEYWORDS.forEach((cat, kws) -> kws.forEach(kw -> keywordCategory.put(kw, cat)));
+        keywordMatcher = new AhoCorasick(keywordCategory.keySet());
+    }
+
+    private record Learned(String category, long seq) {
+    }
+
+    // Stores learned patterns from user input
+    private final Map<String, Learned> learnedMap = new ConcurrentHashMap<>(); // desc -> category
+    private final KeywordMatcher learnedMatcher = new KeywordMatcher();
+    private final Map<String, CategoryStats> categoryAmounts = new ConcurrentHashMap<>(); // category -> amount stats
+
+    // Guarded by patternLock: learn order (least recent first) and sequence numbers
+    private final ReentrantLock patternLock = new ReentrantLock();
+    private final LinkedHashSet<String> learnOrder = new LinkedHashSet<>();
+    private long learnSeq;
+    private volatile int maxLearned = DEFAULT_MAX_LEARNED;
+
+    // Changes not yet written to the store. flushLock keeps each flush's drain and
+    // save together, so an older drain can't be saved over a newer one.
+    private volatile CategorizerStore store;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Set<String> dirtyPatterns = ConcurrentHashMap.newKeySet();
+    private final Set<String> evictedPatterns = ConcurrentHashMap.newKeySet();
+    private final Set<String> dirtyCategories = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The process-wide categorizer used by the app and by DAOs that are not given one.
+     */
+    public static AutoCategorizer shared() {
+        return SHARED;
+    }
+
     /**
      * Suggests a category based on the expense description.
      * First checks learned data, then keyword matches, else returns "Other".
+     * Each source is one automaton pass over the description. Among several hits
+     * the longest pattern wins; ties go to the most recently learned description,
+     * or alphabetically by category for built-in keywords.
      */
-    public static String suggestCategory(String desc) {
+    public String suggestCategory(String desc) {
+        long start = System.nanoTime();
+        try {
+            return match(desc);
+        } finally {
+            SUGGEST_TIMER.record(System.nanoTime() - start);
+        }
+    }
+
+    private String match(String desc) {
         if (desc == null || desc.trim().isEmpty()) return "Other";
         String lowerDesc = desc.toLowerCase().trim();
 
         // 1️⃣ Check learned user data
-        for (String key : learnedMap.keySet()) {
-            if (lowerDesc.contains(key)) {
-                return learnedMap.get(key);
+        String[] bestKey = new String[1];
+        Learned[] bestLearned = new Learned[1];
+        learnedMatcher.forEachMatch(lowerDesc, key -> {
+            Learned l = learnedMap.get(key);
+            if (l == null) return; // evicted concurrently
+            String best = bestKey[0];
+            if (best == null || key.length() > best.length()
+                    || (key.length() == best.length() && l.seq() > bestLearned[0].seq())) {
+                bestKey[0] = key;
+                bestLearned[0] = l;
             }
+        });
+        if (bestLearned[0] != null) {
+            return bestLearned[0].category();
         }
 
         // 2️⃣ Check keyword map
-        for (var entry : KEYWORDS.entrySet()) {
-            for (String kw : entry.getValue()) {
-                if (lowerDesc.contains(kw)) {
-                    return entry.getKey();
-                }
+        String[] bestKeyword = new String[1];
+        keywordMatcher.match(lowerDesc, idx -> {
+            String kw = keywordMatcher.pattern(idx);
+            String best = bestKeyword[0];
+            if (best == null || kw.length() > best.length()
+                    || (kw.length() == best.length()
+                        && keywordCategory.get(kw).compareTo(keywordCategory.get(best)) < 0)) {
+                bestKeyword[0] = kw;
             }
+        });
+        if (bestKeyword[0] != null) {
+            return keywordCategory.get(bestKeyword[0]);
         }
 
         // 3️⃣ Default
         return "Other";
     }
 
+    /**
+     * Suggests categories for a batch of descriptions on the common fork-join pool.
+     * The result is in the same order as the input.
+     */
+    public List<String> categorizeAll(List<String> descriptions) {
+        return categorizeAll(descriptions, ForkJoinPool.commonPool());
+    }
+
+    public List<String> categorizeAll(List<String> descriptions, ForkJoinPool pool) {
+        return pool.submit(() -> descriptions.parallelStream()
+                .map(this::suggestCategory)
+                .toList()).join();
+    }
+
     /**
      * Suggests an average amount based on past similar expenses.
      */
-    public static double suggestAmount(String desc) {
+    public double suggestAmount(String desc) {
         String category = suggestCategory(desc);
-        List<Double> amounts = categoryAmounts.get(category);
-
-        if (amounts == null || amounts.isEmpty()) {
-            return 0;
-        }
+        CategoryStats stats = categoryAmounts.get(category);
 
         // Return average of previous amounts in that category
-        return amounts.stream().mapToDouble(Double::doubleValue).average().orElse(0);
+        return stats == null ? 0 : stats.getMean();
     }
 
     /**
      * Learns a new description-category-amount pair.
      * Should be called when the user adds a new expense.
      */
-    public static void learn(String desc, String category, double amount) {
+    public void learn(String desc, String category, double amount) {
         if (desc == null || desc.trim().isEmpty() || category == null) return;
 
-        learnedMap.put(desc.toLowerCase().trim(), category);
+        long start = System.nanoTime();
+        String key = desc.toLowerCase().trim();
+        patternLock.lock();
+        try {
+            remember(key, category, ++learnSeq);
+            dirtyPatterns.add(key);
+            evictedPatterns.remove(key);
+        } finally {
+            patternLock.unlock();
+        }
+
+        // Stats objects are never mutated once published, so readers need no lock.
+        categoryAmounts.compute(category, (k, old) -> {
+            CategoryStats next = old == null ? new CategoryStats() : old.copy();
+            next.add(amount);
+            return next;
+        });
+        dirtyCategories.add(category);
+        LEARN_TIMER.record(System.nanoTime() - start);
+    }
+
+    // Caller holds patternLock.
+    private void remember(String key, String category, long seq) {
+        learnOrder.remove(key); // re-insert so iteration order stays learn order
+        learnOrder.add(key);
+        learnedMap.put(key, new Learned(category, seq));
+        learnedMatcher.add(key);
 
-        categoryAmounts
-                .computeIfAbsent(category, k -> new ArrayList<>())
-                .add(amount);
+        while (learnOrder.size() > maxLearned) {
+            Iterator<String> eldest = learnOrder.iterator();
+            String evicted = eldest.next();
+            eldest.remove();
+            learnedMap.remove(evicted);
+            learnedMatcher.remove(evicted);
+            dirtyPatterns.remove(evicted);
+            evictedPatterns.add(evicted);
+        }
+    }
+
+    /**
+     * Caps the number of learned descriptions kept, evicting the least recently
+     * learned ones first.
+     */
+    public void setMaxLearned(int max) {
+        maxLearned = Math.max(1, max);
     }
 
     /**
-     * Debug method to print learned data (optional for logging)
+     * Loads the persisted model from {@code store} (merging into anything learned
+     * so far) and makes it the target of {@link #flush()}.
      */
-    public static void printLearnedData() {
-        System.out.println("=== Learned Expense Data ===");
-        learnedMap.forEach((k, v) -> System.out.println(k + " → " + v));
-        System.out.println("============================");
+    public void attach(CategorizerStore store) {
+        attach(store, store.loadPatterns(maxLearned), store.loadStats());
+    }
+
+    /**
+     * Like {@link #attach(CategorizerStore)}, with the model already read from the
+     * store (e.g. from a {@link StartupSnapshot}); {@code patterns} oldest first.
+     */
+    public void attach(CategorizerStore store, List<CategorizerStore.LearnedPattern> patterns,
+                       Map<String, CategoryStats> stats) {
+        patternLock.lock();
+        try {
+            this.store = store;
+            List<String> newer = new ArrayList<>(learnOrder);
+            Map<String, Learned> newerEntries = new HashMap<>(learnedMap);
+            learnOrder.clear();
+            for (var p : patterns) {
+                remember(p.pattern(), p.category(), p.seq());
+                learnSeq = Math.max(learnSeq, p.seq());
+            }
+            // Anything learned before the model was loaded is newer than the store.
+            for (String k : newer) {
+                remember(k, newerEntries.get(k).category(), ++learnSeq);
+            }
+        } finally {
+            patternLock.unlock();
+        }
+        stats.forEach((cat, loaded) -> categoryAmounts.merge(cat, loaded, (mine, fromStore) -> {
+            dirtyCategories.add(cat);
+            CategoryStats merged = fromStore.copy();
+            merged.merge(mine);
+            return merged;
+        }));
+    }
+
+    /**
+     * Writes learned patterns, evictions and category statistics changed since the
+     * last flush to the attached store. No-op when nothing is attached. Concurrent
+     * calls (after an add, after an import, at exit) take turns.
+     */
+    public void flush() {
+        CategorizerStore target = store;
+        if (target == null) return;
+        flushLock.lock();
+        try {
+            drainTo(target);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Caller holds flushLock.
+    private void drainTo(CategorizerStore target) {
+        List<CategorizerStore.LearnedPattern> upserts = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        Map<String, CategoryStats> stats = new HashMap<>();
+
+        // Drain key by key so concurrent learns are either taken now or next time.
+        for (Iterator<String> it = dirtyPatterns.iterator(); it.hasNext(); ) {
+            String key = it.next();
+            it.remove();
+            Learned l = learnedMap.get(key);
+            if (l != null) upserts.add(new CategorizerStore.LearnedPattern(key, l.category(), l.seq()));
+        }
+        for (Iterator<String> it = evictedPatterns.iterator(); it.hasNext(); ) {
+            removed.add(it.next());
+            it.remove();
+        }
+        for (Iterator<String> it = dirtyCategories.iterator(); it.hasNext(); ) {
+            String cat = it.next();
+            it.remove();
+            stats.put(cat, categoryAmounts.get(cat));
+        }
+        try {
+            target.save(upserts, removed, stats);
+        } catch (RuntimeException e) {
+            requeue(upserts, removed, stats.keySet());
+            throw e;
+        }
+    }
+
+    // Marks what a failed save held as dirty again, unless a learn or eviction since
+    // the drain has already superseded it.
+    private void requeue(List<CategorizerStore.LearnedPattern> upserts, List<String> removed,
+                         Set<String> categories) {
+        patternLock.lock();
+        try {
+            for (var p : upserts) {
+                if (learnedMap.containsKey(p.pattern())) dirtyPatterns.add(p.pattern());
+            }
+            for (String key : removed) {
+                if (!learnedMap.containsKey(key)) evictedPatterns.add(key);
+            }
+        } finally {
+            patternLock.unlock();
+        }
+        dirtyCategories.addAll(categories);
     }
 }
@@ -0,0 +1,20 @@
+package com.tracker;
+
+/**
+ * BudgetAlert:
+ * A budget rule that is currently met for a category.
+ */
+public record BudgetAlert(String category, BudgetRule rule, double limit, double spent) {
+
+    public double percentage() {
+        return limit <= 0 ? 0 : spent / limit * 100;
+    }
+
+    public boolean isExceeded() {
+        return spent >= limit;
+    }
+
+    public interface Listener {
+        void onAlert(BudgetAlert alert);
+    }
+}
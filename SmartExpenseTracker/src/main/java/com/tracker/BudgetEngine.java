@@ -0,0 +1,205 @@
+package com.tracker;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * BudgetEngine:
+ * Evaluates budget rules in memory. Daily spend per category is loaded once for the
+ * longest rule window and then kept current from the DAO's change events, and
+ * budget limits come from BudgetManager's cache — so checking an inserted expense
+ * costs a few map lookups and at most ~31 day buckets, with no queries.
+ *
+ * For each period, the highest threshold a category has reached is reported to the
+ * listeners once, when it is first crossed; it is reported again only after spend
+ * drops below it or a new period starts. Batch callers can use
+ * {@link #evaluateAll()} once instead.
+ *
+ * The monitor only guards the in-memory state: database reads, including the
+ * budget cache's first load, happen before taking it, so an event delivered by the
+ * write buffer's thread never waits on a thread that is waiting for that buffer.
+ */
+public class BudgetEngine implements ExpenseListener {
+    private final ExpenseDAO dao;
+    private final BudgetManager budgetManager;
+    private final List<BudgetRule> rules;
+    private final List<BudgetAlert.Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // category -> day -> spend, covering [horizon, ...)
+    private final Map<String, TreeMap<LocalDate, Double>> daily = new HashMap<>();
+    private volatile LocalDate loadedFor;
+    private LocalDate horizon;
+    private LocalDate horizonEnd;
+    private long loadedWrite; // events of writes up to this one are already in daily
+
+    // Highest threshold already reported, per category and period, and the period it was in.
+    private record Reported(LocalDate periodStart, double thresholdPercent) {
+    }
+
+    private final Map<String, Map<BudgetPeriod, Reported>> reported = new HashMap<>();
+
+    public BudgetEngine(ExpenseDAO dao, BudgetManager budgetManager, List<BudgetRule> rules) {
+        this.dao = dao;
+        this.budgetManager = budgetManager;
+        this.rules = List.copyOf(rules);
+    }
+
+    public void addListener(BudgetAlert.Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(BudgetAlert.Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * (Re)loads daily spend for the rule windows from the database.
+     */
+    public void reload() {
+        LocalDate today = LocalDate.now();
+        LocalDate start = today;
+        LocalDate end = today.plusDays(1);
+        for (BudgetRule rule : rules) {
+            DateRange range = rule.period().rangeFor(today);
+            if (range.start().isBefore(start)) start = range.start();
+            if (range.end().isAfter(end)) end = range.end();
+        }
+        DateRange window = new DateRange(start, end);
+        dao.readAtWrite(this, c -> ExpenseDAO.readDailyTotals(c, window), (totals, write) -> {
+            horizon = window.start();
+            horizonEnd = window.end();
+            daily.clear();
+            totals.forEach((day, byCategory) -> byCategory.forEach((cat, amount) ->
+                    daily.computeIfAbsent(cat, k -> new TreeMap<>()).merge(day, amount, Double::sum)));
+            loadedFor = today;
+            loadedWrite = write;
+        });
+    }
+
+    /**
+     * Applies a newly inserted expense and notifies listeners of the rules its
+     * category now meets.
+     */
+    @Override
+    public void expenseInserted(Expense e) {
+        ensureCurrent();
+        double monthly = budgetManager.getBudget(e.getCategory());
+        List<BudgetAlert> alerts;
+        synchronized (this) {
+            apply(e.getCategory(), e.getDate(), e.getAmount());
+            alerts = track(e.getCategory(), evaluate(e.getCategory(), monthly));
+        }
+        alerts.forEach(this::fire);
+    }
+
+    /**
+     * Moves the expense's spend from its old category and day to its new ones in one
+     * step, so an edit that stays over a reported threshold does not re-arm it.
+     */
+    @Override
+    public void expenseUpdated(Expense before, Expense after) {
+        ensureCurrent();
+        String from = before.getCategory();
+        String to = after.getCategory();
+        boolean moved = !Objects.equals(from, to);
+        double fromMonthly = moved ? budgetManager.getBudget(from) : 0;
+        double toMonthly = budgetManager.getBudget(to);
+        List<BudgetAlert> alerts;
+        synchronized (this) {
+            apply(from, before.getDate(), -before.getAmount());
+            apply(to, after.getDate(), after.getAmount());
+            if (moved && reported.containsKey(from)) track(from, evaluate(from, fromMonthly));
+            alerts = track(to, evaluate(to, toMonthly));
+        }
+        alerts.forEach(this::fire);
+    }
+
+    @Override
+    public void expenseDeleted(Expense e) {
+        ensureCurrent();
+        double monthly = budgetManager.getBudget(e.getCategory());
+        synchronized (this) {
+            apply(e.getCategory(), e.getDate(), -e.getAmount());
+            // Spend may have dropped below a reported threshold, so crossing it again alerts.
+            if (reported.containsKey(e.getCategory())) track(e.getCategory(), evaluate(e.getCategory(), monthly));
+        }
+    }
+
+    @Override
+    public void expensesReloaded() {
+        reload();
+    }
+
+    /**
+     * Current alerts for every category with a budget, without notifying listeners —
+     * e.g. one summary after a bulk import.
+     */
+    public List<BudgetAlert> evaluateAll() {
+        ensureCurrent();
+        Map<String, Double> budgets = budgetManager.getAllBudgets();
+        List<BudgetAlert> alerts = new ArrayList<>();
+        synchronized (this) {
+            budgets.forEach((category, monthly) -> alerts.addAll(evaluate(category, monthly)));
+        }
+        return alerts;
+    }
+
+    private void ensureCurrent() {
+        if (!LocalDate.now().equals(loadedFor)) reload();
+    }
+
+    // Caller holds the monitor. Skips events of writes the last load already read.
+    private void apply(String category, LocalDate day, double amount) {
+        if (horizon == null || dao.deliveringWrite() <= loadedWrite) return;
+        if (category == null || day == null || day.isBefore(horizon) || !day.isBefore(horizonEnd)) return;
+        daily.computeIfAbsent(category, k -> new TreeMap<>()).merge(day, amount, Double::sum);
+    }
+
+    private List<BudgetAlert> evaluate(String category, double monthly) {
+        if (monthly <= 0 || loadedFor == null) return List.of();
+
+        LocalDate today = loadedFor;
+        TreeMap<LocalDate, Double> days = daily.getOrDefault(category, new TreeMap<>());
+        Map<BudgetPeriod, BudgetAlert> highest = new EnumMap<>(BudgetPeriod.class);
+        for (BudgetRule rule : rules) {
+            DateRange range = rule.period().rangeFor(today);
+            double spent = 0;
+            for (double v : days.subMap(range.start(), true, range.end(), false).values()) spent += v;
+            double limit = rule.period().limitFor(monthly, today);
+            if (spent / limit * 100 >= rule.thresholdPercent()) {
+                BudgetAlert current = highest.get(rule.period());
+                if (current == null || rule.thresholdPercent() > current.rule().thresholdPercent()) {
+                    highest.put(rule.period(), new BudgetAlert(category, rule, limit, spent));
+                }
+            }
+        }
+        return new ArrayList<>(highest.values());
+    }
+
+    // Records the thresholds the category is at now, per period, and returns the
+    // alerts that are higher than what was last reported or in a new period.
+    private List<BudgetAlert> track(String category, List<BudgetAlert> alerts) {
+        Map<BudgetPeriod, Reported> seen = reported.computeIfAbsent(category, k -> new EnumMap<>(BudgetPeriod.class));
+        Map<BudgetPeriod, BudgetAlert> current = new EnumMap<>(BudgetPeriod.class);
+        alerts.forEach(a -> current.put(a.rule().period(), a));
+        seen.keySet().retainAll(current.keySet());
+
+        List<BudgetAlert> crossed = new ArrayList<>();
+        current.forEach((period, alert) -> {
+            LocalDate start = period.rangeFor(loadedFor).start();
+            double threshold = alert.rule().thresholdPercent();
+            Reported before = seen.put(period, new Reported(start, threshold));
+            if (before == null || !before.periodStart().equals(start) || before.thresholdPercent() < threshold) {
+                crossed.add(alert);
+            }
+        });
+        return crossed;
+    }
+
+    private void fire(BudgetAlert alert) {
+        for (BudgetAlert.Listener l : listeners) {
+            l.onAlert(alert);
+        }
+    }
+}
@@ -2,12 +2,27 @@ package com.tracker;
 
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * BudgetManager:
+ * Monthly budget limits per category. The budgets table is read once and cached;
+ * setBudget writes through, so lookups never hit the database afterwards.
+ */
+@SuppressWarnings("try") // Metrics.Sample
 public class BudgetManager {
-    private final Connection conn;
+    private final ConnectionPool pool;
+    private final Map<String, Double> cache = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+    private final AtomicLong version = new AtomicLong();
 
     public BudgetManager() {
-        this.conn = DBHelper.connect();
+        this(DBHelper.pool());
+    }
+
+    public BudgetManager(ConnectionPool pool) {
+        this.pool = pool;
         createBudgetTable();
     }
 
@@ -18,47 +33,79 @@ public class BudgetManager {
                 budget_limit REAL
             )
         """;
-        try (Statement st = conn.createStatement()) {
+        try (PooledConnection c = pool.writer();
+             Statement st = c.connection().createStatement()) {
             st.execute(sql);
         } catch (SQLException e) {
-            e.printStackTrace();
+            Metrics.sqlError(e);
         }
     }
 
     public void setBudget(String category, double limit) {
         String sql = "INSERT OR REPLACE INTO budgets(category, budget_limit) VALUES(?,?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Metrics.Sample t = Metrics.time("db.budgets.setBudget");
+             PooledConnection c = pool.writer()) {
+            PreparedStatement ps = c.prepare(sql);
             ps.setString(1, category);
             ps.setDouble(2, limit);
             ps.executeUpdate();
+            if (loaded) cache.put(category, limit);
+            version.incrementAndGet();
         } catch (SQLException e) {
-            e.printStackTrace();
+            Metrics.sqlError(e);
         }
     }
 
     public Map<String, Double> getAllBudgets() {
-        Map<String, Double> budgets = new HashMap<>();
-        try (Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery("SELECT * FROM budgets")) {
-            while (rs.next()) {
-                budgets.put(rs.getString("category"), rs.getDouble("budget_limit"));
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return budgets;
+        ensureLoaded();
+        return new HashMap<>(cache);
     }
 
     public double getBudget(String category) {
-        try (PreparedStatement ps = conn.prepareStatement("SELECT budget_limit FROM budgets WHERE category=?")) {
-            ps.setString(1, category);
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) {
-                return rs.getDouble("budget_limit");
+        if (category == null) return 0;
+        ensureLoaded();
+        return cache.getOrDefault(category, 0.0);
+    }
+
+    /**
+     * Fills the cache from a known-current copy of the budgets table (e.g. a
+     * {@link StartupSnapshot}) instead of reading it. Ignored once loaded.
+     */
+    public synchronized void preload(Map<String, Double> budgets) {
+        if (loaded) return;
+        cache.putAll(budgets);
+        loaded = true;
+    }
+
+    /**
+     * Drops the cached budgets; the next lookup reloads them.
+     */
+    public synchronized void invalidate() {
+        loaded = false;
+        cache.clear();
+        version.incrementAndGet();
+    }
+
+    /** Changes whenever a budget is set through this manager or the cache is dropped. */
+    public long getVersion() {
+        return version.get();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        synchronized (this) {
+            if (loaded) return;
+            // Under the writer lock so a concurrent setBudget can't be missed.
+            try (Metrics.Sample t = Metrics.time("db.budgets.load");
+                 PooledConnection c = pool.writer();
+                 ResultSet rs = c.prepare("SELECT category, budget_limit FROM budgets").executeQuery()) {
+                while (rs.next()) {
+                    cache.put(rs.getString("category"), rs.getDouble("budget_limit"));
+                }
+                loaded = true;
+            } catch (SQLException e) {
+                Metrics.sqlError(e);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
-        return 0;
     }
 }
\ No newline at end of file
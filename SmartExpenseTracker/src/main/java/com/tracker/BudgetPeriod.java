@@ -0,0 +1,30 @@
+package com.tracker;
+
+import java.time.LocalDate;
+
+/**
+ * BudgetPeriod:
+ * The window a budget rule is evaluated over. Budgets are set per month, so shorter
+ * windows compare against the monthly limit prorated by their length in days.
+ */
+public enum BudgetPeriod {
+    MONTHLY,
+    WEEKLY,
+    ROLLING_30_DAYS;
+
+    public DateRange rangeFor(LocalDate today) {
+        return switch (this) {
+            case MONTHLY -> DateRange.month(java.time.YearMonth.from(today));
+            case WEEKLY -> DateRange.week(today);
+            case ROLLING_30_DAYS -> new DateRange(today.minusDays(29), today.plusDays(1));
+        };
+    }
+
+    public double limitFor(double monthlyLimit, LocalDate today) {
+        return switch (this) {
+            case MONTHLY -> monthlyLimit;
+            case WEEKLY -> monthlyLimit * 7 / today.lengthOfMonth();
+            case ROLLING_30_DAYS -> monthlyLimit * 30 / today.lengthOfMonth();
+        };
+    }
+}
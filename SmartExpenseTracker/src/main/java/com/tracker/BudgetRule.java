@@ -0,0 +1,18 @@
+package com.tracker;
+
+import java.util.List;
+
+/**
+ * BudgetRule:
+ * Raise an alert once spending in a period reaches {@code thresholdPercent} of the
+ * category budget.
+ */
+public record BudgetRule(double thresholdPercent, BudgetPeriod period) {
+
+    /** The app's rules: warn at 80% and at 100% of the monthly budget. */
+    public static List<BudgetRule> defaults() {
+        return List.of(
+                new BudgetRule(80, BudgetPeriod.MONTHLY),
+                new BudgetRule(100, BudgetPeriod.MONTHLY));
+    }
+}
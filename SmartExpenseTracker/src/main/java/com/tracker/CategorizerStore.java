@@ -0,0 +1,134 @@
+package com.tracker;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * CategorizerStore:
+ * SQLite persistence for the AutoCategorizer model — learned description patterns
+ * (with their learn order, for LRU eviction) and per-category amount statistics.
+ */
+@SuppressWarnings("try") // Metrics.Sample
+public class CategorizerStore {
+
+    public record LearnedPattern(String pattern, String category, long seq) {
+    }
+
+    private final ConnectionPool pool;
+
+    public CategorizerStore() {
+        this(DBHelper.pool());
+    }
+
+    public CategorizerStore(ConnectionPool pool) {
+        this.pool = pool;
+        createTables();
+    }
+
+    private void createTables() {
+        try (Metrics.Sample t = Metrics.time("db.categorizer.createTables");
+             PooledConnection c = pool.writer();
+             Statement st = c.connection().createStatement()) {
+            st.execute("""
+                CREATE TABLE IF NOT EXISTS learned_patterns (
+                    pattern TEXT PRIMARY KEY,
+                    category TEXT NOT NULL,
+                    seq INTEGER NOT NULL
+                )
+            """);
+            st.execute("""
+                CREATE TABLE IF NOT EXISTS category_stats (
+                    category TEXT PRIMARY KEY,
+                    count INTEGER NOT NULL,
+                    mean REAL NOT NULL,
+                    m2 REAL NOT NULL
+                )
+            """);
+        } catch (SQLException e) {
+            Metrics.sqlError(e);
+        }
+    }
+
+    /**
+     * The most recently learned patterns, oldest first, at most {@code limit}.
+     */
+    public List<LearnedPattern> loadPatterns(int limit) {
+        List<LearnedPattern> list = new ArrayList<>();
+        try (Metrics.Sample t = Metrics.time("db.categorizer.loadPatterns");
+             PooledConnection c = pool.reader()) {
+            PreparedStatement ps = c.prepare(
+                    "SELECT pattern, category, seq FROM (SELECT * FROM learned_patterns ORDER BY seq DESC LIMIT ?) ORDER BY seq");
+            ps.setInt(1, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(new LearnedPattern(rs.getString("pattern"), rs.getString("category"), rs.getLong("seq")));
+                }
+            }
+        } catch (SQLException e) {
+            Metrics.sqlError(e);
+        }
+        return list;
+    }
+
+    public Map<String, CategoryStats> loadStats() {
+        Map<String, CategoryStats> map = new HashMap<>();
+        try (Metrics.Sample t = Metrics.time("db.categorizer.loadStats");
+             PooledConnection c = pool.reader();
+             ResultSet rs = c.prepare("SELECT category, count, mean, m2 FROM category_stats").executeQuery()) {
+            while (rs.next()) {
+                map.put(rs.getString("category"),
+                        new CategoryStats(rs.getLong("count"), rs.getDouble("mean"), rs.getDouble("m2")));
+            }
+        } catch (SQLException e) {
+            Metrics.sqlError(e);
+        }
+        return map;
+    }
+
+    /**
+     * Writes one batch of model changes in a single transaction.
+     */
+    public void save(Collection<LearnedPattern> upserts, Collection<String> removed, Map<String, CategoryStats> stats) {
+        if (upserts.isEmpty() && removed.isEmpty() && stats.isEmpty()) return;
+        try (Metrics.Sample t = Metrics.time("db.categorizer.save");
+             PooledConnection c = pool.writer()) {
+            Connection conn = c.connection();
+            conn.setAutoCommit(false);
+            try {
+                PreparedStatement up = c.prepare("INSERT OR REPLACE INTO learned_patterns(pattern, category, seq) VALUES(?,?,?)");
+                for (LearnedPattern p : upserts) {
+                    up.setString(1, p.pattern());
+                    up.setString(2, p.category());
+                    up.setLong(3, p.seq());
+                    up.addBatch();
+                }
+                up.executeBatch();
+
+                PreparedStatement del = c.prepare("DELETE FROM learned_patterns WHERE pattern=?");
+                for (String p : removed) {
+                    del.setString(1, p);
+                    del.addBatch();
+                }
+                del.executeBatch();
+
+                PreparedStatement st = c.prepare("INSERT OR REPLACE INTO category_stats(category, count, mean, m2) VALUES(?,?,?,?)");
+                for (var e : stats.entrySet()) {
+                    st.setString(1, e.getKey());
+                    st.setLong(2, e.getValue().getCount());
+                    st.setDouble(3, e.getValue().getMean());
+                    st.setDouble(4, e.getValue().getM2());
+                    st.addBatch();
+                }
+                st.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            Metrics.sqlError(e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.tracker;
+
+/**
+ * CategoryStats:
+ * Running count, mean and variance of expense amounts in one category (Welford's
+ * algorithm), so the average is available in O(1) without keeping past amounts.
+ */
+public class CategoryStats {
+    private long count;
+    private double mean;
+    private double m2;
+
+    public CategoryStats() {
+    }
+
+    public CategoryStats(long count, double mean, double m2) {
+        this.count = count;
+        this.mean = mean;
+        this.m2 = m2;
+    }
+
+    public void add(double amount) {
+        count++;
+        double delta = amount - mean;
+        mean += delta / count;
+        m2 += delta * (amount - mean);
+    }
+
+    /**
+     * Folds another set of statistics into this one (parallel Welford update).
+     */
+    public void merge(CategoryStats other) {
+        if (other.count == 0) return;
+        long n = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / n;
+        m2 += other.m2 + delta * delta * count * other.count / n;
+        count = n;
+    }
+
+    public long getCount() { return count; }
+    public double getMean() { return mean; }
+    public double getM2() { return m2; }
+
+    public double getVariance() {
+        return count < 2 ? 0 : m2 / (count - 1);
+    }
+
+    public CategoryStats copy() {
+        return new CategoryStats(count, mean, m2);
+    }
+}
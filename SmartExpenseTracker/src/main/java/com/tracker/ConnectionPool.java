@@ -0,0 +1,136 @@
+package com.tracker;
+
+import org.sqlite.SQLiteConfig;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ConnectionPool:
+ * Shared SQLite storage layer. One writer connection guarded by a lock (SQLite only
+ * allows a single writer anyway) plus a bounded set of read-only connections.
+ * The database runs in WAL mode so readers never block behind the writer.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final int DEFAULT_READERS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private final String url;
+    private final int maxReaders;
+    private final ReentrantLock writeLock = new ReentrantLock(true);
+    private final PooledConnection writer;
+    // Bumped when the writer is taken and when it is given back: odd while held.
+    private volatile long writerLeases;
+    private final BlockingQueue<PooledConnection> idleReaders = new LinkedBlockingQueue<>();
+    private final List<PooledConnection> allReaders = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    public ConnectionPool(String url) {
+        this(url, DEFAULT_READERS);
+    }
+
+    public ConnectionPool(String url, int maxReaders) {
+        this.url = url;
+        this.maxReaders = Math.max(1, maxReaders);
+        // The writer is opened eagerly: it creates the file and switches it to WAL
+        // before any read-only connection attaches.
+        this.writer = open(false);
+    }
+
+    /**
+     * Acquires the single writer connection. Blocks while another thread holds it;
+     * re-entrant for the owning thread. Release by closing the returned handle.
+     */
+    public PooledConnection writer() {
+        checkOpen();
+        writeLock.lock();
+        if (writeLock.getHoldCount() == 1) writerLeases++;
+        return writer;
+    }
+
+    /**
+     * Changes every time the writer is taken or given back, and is odd while it is
+     * held. A reader that sees the same even value before and after a read knows no
+     * write of this process overlapped it.
+     */
+    long writerLeases() {
+        return writerLeases;
+    }
+
+    /**
+     * Borrows a read-only connection, opening a new one lazily up to the pool bound
+     * and waiting for a free one after that.
+     */
+    public PooledConnection reader() {
+        checkOpen();
+        PooledConnection c = idleReaders.poll();
+        if (c != null) return c;
+
+        synchronized (allReaders) {
+            if (allReaders.size() < maxReaders) {
+                c = open(true);
+                allReaders.add(c);
+                return c;
+            }
+        }
+        try {
+            return idleReaders.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a read connection", e);
+        }
+    }
+
+    void release(PooledConnection c) {
+        if (c == writer) {
+            if (writeLock.getHoldCount() == 1) writerLeases++;
+            writeLock.unlock();
+        } else if (closed) {
+            c.closeQuietly();
+        } else {
+            idleReaders.offer(c);
+        }
+    }
+
+    public String getUrl() { return url; }
+
+    private PooledConnection open(boolean readOnly) {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setBusyTimeout(5000);
+        config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+        config.setCacheSize(-16384); // 16 MiB page cache per connection
+        config.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(256L * 1024 * 1024));
+        config.setTempStore(SQLiteConfig.TempStore.MEMORY);
+        if (readOnly) {
+            config.setReadOnly(true);
+        } else {
+            config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        }
+        try {
+            return new PooledConnection(this, DriverManager.getConnection(url, config.toProperties()));
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot open database " + url, e);
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) throw new IllegalStateException("Connection pool is closed: " + url);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        PooledConnection c;
+        while ((c = idleReaders.poll()) != null) {
+            c.closeQuietly();
+        }
+        // Close the writer last so it can checkpoint and remove the WAL file.
+        writeLock.lock();
+        try {
+            writer.closeQuietly();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.tracker;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CsvExporter:
+ * Streams expenses from a forward-only database cursor straight into a buffered
+ * (optionally gzip-compressed) file, so memory use does not depend on the number
+ * of rows. Fields are quoted per RFC 4180. Optional date-range and category filters;
+ * progress callbacks and cooperative cancellation for running in the background.
+ */
+public class CsvExporter {
+    public static final String HEADER = "ID,Date,Description,Category,Amount";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_EVERY = 5_000;
+
+    public interface Progress {
+        void update(long done, long total);
+    }
+
+    private final ExpenseDAO dao;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private DateRange range;
+    private String category;
+
+    public CsvExporter(ExpenseDAO dao) {
+        this.dao = dao;
+    }
+
+    /** Only export expenses dated within {@code range} (null for all). */
+    public CsvExporter range(DateRange range) {
+        this.range = range;
+        return this;
+    }
+
+    /** Only export expenses in {@code category} (null for all). */
+    public CsvExporter category(String category) {
+        this.category = category;
+        return this;
+    }
+
+    /** Requests cancellation; the running export stops and deletes its partial file. */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    /**
+     * Writes the matching expenses to {@code file}, gzip-compressed when the file name
+     * ends in ".gz". Returns the number of rows written.
+     */
+    public long export(Path file, Progress progress) throws IOException {
+        boolean gzip = file.getFileName().toString().toLowerCase().endsWith(".gz");
+        long total = progress == null ? -1 : dao.countExpenses(range, category);
+        long[] written = {0};
+
+        // Every stream is a resource, so one that fails to open still closes the rest.
+        try (OutputStream raw = Files.newOutputStream(file);
+             OutputStream out = gzip ? new GZIPOutputStream(raw, BUFFER_SIZE) : raw;
+             Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            w.write(HEADER);
+            w.write("\r\n");
+            dao.forEachExpense(range, category, e -> {
+                if (cancelled.get() || Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Export cancelled");
+                }
+                w.write(Integer.toString(e.getId()));
+                w.write(',');
+                w.write(e.getDate() == null ? "" : e.getDate().toString());
+                w.write(',');
+                writeField(w, e.getDescription());
+                w.write(',');
+                writeField(w, e.getCategory());
+                w.write(',');
+                w.write(Double.toString(e.getAmount()));
+                w.write("\r\n");
+                if (++written[0] % PROGRESS_EVERY == 0 && progress != null) {
+                    progress.update(written[0], total);
+                }
+            });
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(file);
+            throw ex;
+        }
+        if (progress != null) progress.update(written[0], total);
+        return written[0];
+    }
+
+    /**
+     * Writes a field, quoting it when it contains a comma, quote or line break and
+     * doubling any embedded quotes.
+     */
+    static void writeField(Writer w, String value) throws IOException {
+        if (value == null) return;
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            w.write(value);
+            return;
+        }
+        w.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') w.write('"');
+            w.write(c);
+        }
+        w.write('"');
+    }
+}
@@ -0,0 +1,77 @@
+package com.tracker;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * CsvReader:
+ * Minimal streaming RFC 4180 reader. Handles quoted fields, escaped quotes ("")
+ * and line breaks inside quotes, reading one record at a time.
+ */
+public class CsvReader implements Closeable {
+    private final Reader in;
+    private long recordNumber;
+
+    public CsvReader(Reader in) {
+        this.in = in instanceof BufferedReader ? in : new BufferedReader(in);
+    }
+
+    /**
+     * Reads the next record, or returns null at end of input.
+     */
+    public List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean sawAny = false;
+        int c;
+
+        while ((c = in.read()) != -1) {
+            sawAny = true;
+            if (quoted) {
+                if (c == '"') {
+                    in.mark(1);
+                    int next = in.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) in.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r') {
+                    in.mark(1);
+                    if (in.read() != '\n') in.reset();
+                }
+                fields.add(field.toString());
+                recordNumber++;
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+
+        if (!sawAny) return null;
+        fields.add(field.toString());
+        recordNumber++;
+        return fields;
+    }
+
+    /**
+     * 1-based number of the last record returned.
+     */
+    public long getRecordNumber() { return recordNumber; }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -1,15 +1,54 @@
 package com.tracker;
 
-import java.sql.*;
+import java.nio.file.Path;
 
 public class DBHelper {
-    public static Connection connect() {
-        try {
-            Class.forName("org.sqlite.JDBC");
-            return DriverManager.getConnection("jdbc:sqlite:expenses.db");
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
+    public static final String DB_URL = "jdbc:sqlite:expenses.db";
+    public static final String LEDGER_DIR = "ledgers";
+
+    private static ConnectionPool pool;
+    private static LedgerRouter ledgers;
+    private static LedgerRouter.Ledger appLedger;
+
+    /**
+     * Shared pool for the application database, opened on first use: the ledger
+     * named by {@code tracker.ledger} if set, otherwise {@code expenses.db}.
+     */
+    public static synchronized ConnectionPool pool() {
+        if (pool == null) {
+            String ledger = System.getProperty("tracker.ledger");
+            if (ledger == null || ledger.isBlank()) {
+                pool = new ConnectionPool(DB_URL);
+            } else {
+                appLedger = ledgers().open(ledger); // borrowed until shutdown
+                pool = appLedger.pool();
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Shared router over the ledger files in {@code tracker.ledgers.dir} (default
+     * {@code ledgers}), created on first use.
+     */
+    public static synchronized LedgerRouter ledgers() {
+        if (ledgers == null) {
+            ledgers = new LedgerRouter(Path.of(System.getProperty("tracker.ledgers.dir", LEDGER_DIR)));
+        }
+        return ledgers;
+    }
+
+    public static synchronized void shutdown() {
+        if (appLedger != null) {
+            appLedger.close();
+            appLedger = null;
+        } else if (pool != null) {
+            pool.close();
+        }
+        pool = null;
+        if (ledgers != null) {
+            ledgers.close();
+            ledgers = null;
         }
     }
 }
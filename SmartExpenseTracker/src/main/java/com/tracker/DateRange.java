@@ -0,0 +1,47 @@
+package com.tracker;
+
+import java.time.*;
+import java.time.temporal.*;
+
+/**
+ * DateRange:
+ * A half-open range of days, {@code [start, end)}, used to scope totals and budget
+ * checks to a period. Dates are compared as ISO strings, which sort chronologically.
+ */
+public record DateRange(LocalDate start, LocalDate end) {
+
+    public DateRange {
+        if (!end.isAfter(start)) throw new IllegalArgumentException("Empty date range: " + start + " to " + end);
+    }
+
+    public static DateRange month(YearMonth month) {
+        return new DateRange(month.atDay(1), month.plusMonths(1).atDay(1));
+    }
+
+    public static DateRange currentMonth() {
+        return month(YearMonth.now());
+    }
+
+    /**
+     * The ISO week (Monday to Sunday) containing {@code day}.
+     */
+    public static DateRange week(LocalDate day) {
+        LocalDate monday = day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        return new DateRange(monday, monday.plusWeeks(1));
+    }
+
+    public static DateRange currentWeek() {
+        return week(LocalDate.now());
+    }
+
+    /**
+     * Both ends inclusive, as picked in a date dialog.
+     */
+    public static DateRange of(LocalDate first, LocalDate last) {
+        return new DateRange(first, last.plusDays(1));
+    }
+
+    public boolean contains(LocalDate day) {
+        return !day.isBefore(start) && day.isBefore(end);
+    }
+}
@@ -1,20 +1,30 @@
 package com.tracker;
 
+import java.time.LocalDate;
+
 public class Expense {
     private int id;
     private String description;
     private String category;
     private double amount;
+    private LocalDate date;
 
+    // Undated, like rows stored before expenses had dates.
     public Expense(int id, String description, String category, double amount) {
+        this(id, description, category, amount, null);
+    }
+
+    public Expense(int id, String description, String category, double amount, LocalDate date) {
         this.id = id;
         this.description = description;
         this.category = category;
         this.amount = amount;
+        this.date = date;
     }
 
     public int getId() { return id; }
     public String getDescription() { return description; }
     public String getCategory() { return category; }
     public double getAmount() { return amount; }
+    public LocalDate getDate() { return date; }
 }
@@ -0,0 +1,313 @@
+package com.tracker;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * ExpenseColumns:
+ * Column-wise in-memory copy of expenses for analytical scans (totals, filters,
+ * group-bys) over many rows.
+ *
+ * Each column is a primitive array: ids, amounts and dates (as epoch days) directly,
+ * categories as int codes into a small dictionary, and descriptions as UTF-8 bytes
+ * packed into one array with an offset per row. A row costs about 24 bytes plus its
+ * description text, against roughly 150+ bytes for an {@link Expense} with its
+ * Strings and LocalDate, and scans are plain indexed loops the JIT can unroll and
+ * vectorize instead of stream pipelines over objects.
+ *
+ * Not thread-safe while being appended to; once filled it can be shared read-only.
+ */
+public class ExpenseColumns {
+    /** Date column value for rows without a date; excluded from every range. */
+    public static final int NO_DATE = Integer.MIN_VALUE;
+
+    private int size;
+    private int[] ids;
+    private double[] amounts;
+    private int[] dates;
+    private int[] categoryCodes;
+    private int[] descriptionEnds; // row i's bytes are [descriptionEnds[i-1], descriptionEnds[i])
+    private byte[] descriptionBytes = new byte[1024];
+    private int descriptionLength;
+
+    private final List<String> categories = new ArrayList<>();
+    private final Map<String, Integer> categoryCode = new HashMap<>();
+
+    public ExpenseColumns() {
+        this(1024);
+    }
+
+    public ExpenseColumns(int initialCapacity) {
+        int cap = Math.max(16, initialCapacity);
+        ids = new int[cap];
+        amounts = new double[cap];
+        dates = new int[cap];
+        categoryCodes = new int[cap];
+        descriptionEnds = new int[cap];
+    }
+
+    public void add(Expense e) {
+        add(e.getId(), e.getDescription(), e.getCategory(), e.getAmount(), e.getDate());
+    }
+
+    public void add(int id, String description, String category, double amount, LocalDate date) {
+        if (size == ids.length) grow();
+        ids[size] = id;
+        amounts[size] = amount;
+        dates[size] = date == null ? NO_DATE : (int) date.toEpochDay();
+        categoryCodes[size] = codeOf(category == null ? "" : category);
+
+        byte[] bytes = description == null ? new byte[0] : description.getBytes(StandardCharsets.UTF_8);
+        if (descriptionLength + bytes.length > descriptionBytes.length) {
+            descriptionBytes = Arrays.copyOf(descriptionBytes,
+                    Math.max(descriptionBytes.length * 2, descriptionLength + bytes.length));
+        }
+        System.arraycopy(bytes, 0, descriptionBytes, descriptionLength, bytes.length);
+        descriptionLength += bytes.length;
+        descriptionEnds[size] = descriptionLength;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // === Row access ===
+
+    public int id(int row) { return ids[row]; }
+    public double amount(int row) { return amounts[row]; }
+    public String category(int row) { return categories.get(categoryCodes[row]); }
+
+    public LocalDate date(int row) {
+        return dates[row] == NO_DATE ? null : LocalDate.ofEpochDay(dates[row]);
+    }
+
+    public String description(int row) {
+        int from = row == 0 ? 0 : descriptionEnds[row - 1];
+        return new String(descriptionBytes, from, descriptionEnds[row] - from, StandardCharsets.UTF_8);
+    }
+
+    public Expense get(int row) {
+        return new Expense(id(row), description(row), category(row), amount(row), date(row));
+    }
+
+    // === Dictionary ===
+
+    /** Distinct categories, indexed by code. */
+    public List<String> categories() {
+        return Collections.unmodifiableList(categories);
+    }
+
+    /** Code of {@code category}, or -1 if no row has it. */
+    public int categoryCode(String category) {
+        return categoryCode.getOrDefault(category == null ? "" : category, -1);
+    }
+
+    // === Scans ===
+
+    public double total() {
+        double sum = 0;
+        double[] a = amounts;
+        for (int i = 0, n = size; i < n; i++) sum += a[i];
+        return sum;
+    }
+
+    public double total(DateRange range) {
+        int from = (int) range.start().toEpochDay(), to = (int) range.end().toEpochDay();
+        double sum = 0;
+        double[] a = amounts;
+        int[] d = dates;
+        for (int i = 0, n = size; i < n; i++) {
+            int day = d[i];
+            sum += day >= from && day < to ? a[i] : 0;
+        }
+        return sum;
+    }
+
+    public double totalOf(String category) {
+        int code = categoryCode(category);
+        if (code < 0) return 0;
+        double sum = 0;
+        double[] a = amounts;
+        int[] c = categoryCodes;
+        for (int i = 0, n = size; i < n; i++) {
+            sum += c[i] == code ? a[i] : 0;
+        }
+        return sum;
+    }
+
+    /**
+     * Total per category, as from {@code GROUP BY category}. Categories with no rows
+     * are left out.
+     */
+    public Map<String, Double> totalsByCategory() {
+        double[] sums = new double[categories.size()];
+        int[] counts = new int[categories.size()];
+        double[] a = amounts;
+        int[] c = categoryCodes;
+        for (int i = 0, n = size; i < n; i++) {
+            sums[c[i]] += a[i];
+            counts[c[i]]++;
+        }
+        return toMap(sums, counts);
+    }
+
+    public Map<String, Double> totalsByCategory(DateRange range) {
+        int from = (int) range.start().toEpochDay(), to = (int) range.end().toEpochDay();
+        double[] sums = new double[categories.size()];
+        int[] counts = new int[categories.size()];
+        double[] a = amounts;
+        int[] c = categoryCodes;
+        int[] d = dates;
+        for (int i = 0, n = size; i < n; i++) {
+            int day = d[i];
+            if (day >= from && day < to) {
+                sums[c[i]] += a[i];
+                counts[c[i]]++;
+            }
+        }
+        return toMap(sums, counts);
+    }
+
+    /**
+     * Rows matching every given filter (null means any), in insertion order.
+     */
+    public int[] filter(DateRange range, String category, double minAmount, double maxAmount) {
+        int code = category == null ? -1 : categoryCode(category);
+        if (category != null && code < 0) return new int[0];
+        int from = range == null ? Integer.MIN_VALUE : (int) range.start().toEpochDay();
+        int to = range == null ? Integer.MAX_VALUE : (int) range.end().toEpochDay();
+        boolean anyDate = range == null;
+
+        int[] out = new int[Math.min(size, 64)];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            int day = dates[i];
+            if (!anyDate && (day == NO_DATE || day < from || day >= to)) continue;
+            if (code >= 0 && categoryCodes[i] != code) continue;
+            double amt = amounts[i];
+            if (amt < minAmount || amt > maxAmount) continue;
+            if (n == out.length) out = Arrays.copyOf(out, out.length * 2);
+            out[n++] = i;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Rows whose description contains {@code text}, ignoring ASCII case. Compares the
+     * packed bytes in place, without decoding a String per row.
+     */
+    public int[] descriptionContains(String text) {
+        byte[] needle = needle(text);
+        int[] out = new int[Math.min(size, 64)];
+        int n = 0;
+        int start = 0;
+        for (int i = 0; i < size; i++) {
+            int end = descriptionEnds[i];
+            if (containsIgnoreAsciiCase(descriptionBytes, start, end, needle)) {
+                if (n == out.length) out = Arrays.copyOf(out, out.length * 2);
+                out[n++] = i;
+            }
+            start = end;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * As {@link #descriptionContains(String)}, but only among {@code rows} (e.g. from
+     * {@link #filter}).
+     */
+    public int[] descriptionContains(String text, int[] rows) {
+        byte[] needle = needle(text);
+        int[] out = new int[rows.length];
+        int n = 0;
+        for (int row : rows) {
+            int start = row == 0 ? 0 : descriptionEnds[row - 1];
+            if (containsIgnoreAsciiCase(descriptionBytes, start, descriptionEnds[row], needle)) out[n++] = row;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /** Count, sum and largest amount of one category's rows. */
+    public record CategorySummary(int count, double total, double max) {
+        public double average() {
+            return count == 0 ? 0 : total / count;
+        }
+    }
+
+    /**
+     * Count, total and largest amount per category over {@code rows}, in one pass.
+     * Categories with none of the rows are left out.
+     */
+    public Map<String, CategorySummary> statsByCategory(int[] rows) {
+        int k = categories.size();
+        double[] sums = new double[k];
+        int[] counts = new int[k];
+        double[] maxes = new double[k];
+        Arrays.fill(maxes, Double.NEGATIVE_INFINITY);
+        double[] a = amounts;
+        int[] c = categoryCodes;
+        for (int row : rows) {
+            int code = c[row];
+            double amount = a[row];
+            sums[code] += amount;
+            counts[code]++;
+            if (amount > maxes[code]) maxes[code] = amount;
+        }
+        Map<String, CategorySummary> map = new HashMap<>();
+        for (int code = 0; code < k; code++) {
+            if (counts[code] > 0) map.put(categories.get(code), new CategorySummary(counts[code], sums[code], maxes[code]));
+        }
+        return map;
+    }
+
+    /** Approximate heap held by the columns, in bytes. */
+    public long estimatedBytes() {
+        return (long) ids.length * (4 + 8 + 4 + 4 + 4) + descriptionBytes.length;
+    }
+
+    private static byte[] needle(String text) {
+        return text.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static boolean containsIgnoreAsciiCase(byte[] hay, int from, int to, byte[] needle) {
+        outer:
+        for (int i = from, last = to - needle.length; i <= last; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                byte b = hay[i + j];
+                if (b >= 'A' && b <= 'Z') b += 'a' - 'A';
+                if (b != needle[j]) continue outer;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private Map<String, Double> toMap(double[] sums, int[] counts) {
+        Map<String, Double> map = new HashMap<>();
+        for (int code = 0; code < sums.length; code++) {
+            if (counts[code] > 0) map.put(categories.get(code), sums[code]);
+        }
+        return map;
+    }
+
+    private int codeOf(String category) {
+        Integer code = categoryCode.get(category);
+        if (code == null) {
+            code = categories.size();
+            categories.add(category);
+            categoryCode.put(category, code);
+        }
+        return code;
+    }
+
+    private void grow() {
+        int cap = ids.length * 2;
+        ids = Arrays.copyOf(ids, cap);
+        amounts = Arrays.copyOf(amounts, cap);
+        dates = Arrays.copyOf(dates, cap);
+        categoryCodes = Arrays.copyOf(categoryCodes, cap);
+        descriptionEnds = Arrays.copyOf(descriptionEnds, cap);
+    }
+}
@@ -1,13 +1,163 @@
 package com.tracker;
 
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
 
+@SuppressWarnings("try") // Metrics.Sample
 public class ExpenseDAO {
-    private final Connection conn;
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final String INSERT_SQL = "INSERT INTO expenses(description, category, amount, expense_date) VALUES(?,?,?,?)";
+    private static final String COLUMNS = "e.id, e.description, e.category, e.amount, e.expense_date";
+
+    // Below this many uncategorized rows a chunk is categorized on the calling thread.
+    private static final int PARALLEL_CATEGORIZE_THRESHOLD = 256;
+
+    private final ConnectionPool pool;
+    private final AutoCategorizer categorizer;
+
+    // In-process copy of category_totals, loaded once and then kept current by
+    // applying each committed insert/delete as a delta (always under the writer lock).
+    // A reload builds a new map and swaps it in, so readers never see a partial one.
+    private record CategoryTotal(double total, long count) {
+    }
+
+    private static final int RELOAD_ATTEMPTS = 3;
+    private static final long RELOAD_BACKOFF_NANOS = 200_000; // doubled per attempt
+    private final Object totalsLock = new Object(); // orders deltas against a reload's swap
+    private volatile Map<String, CategoryTotal> totals; // null until first loaded
+
+    private final List<ExpenseListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile WriteBuffer writeBuffer;
+
+    // Number of the last committed write (bumped under the writer lock), and of the
+    // write whose events the current thread is delivering.
+    private volatile long lastWrite;
+    private final ThreadLocal<Long> delivering = new ThreadLocal<>();
 
     public ExpenseDAO() {
-        this.conn = DBHelper.connect();
+        this(DBHelper.pool());
+    }
+
+    public ExpenseDAO(ConnectionPool pool) {
+        this(pool, AutoCategorizer.shared());
+    }
+
+    public ExpenseDAO(ConnectionPool pool, AutoCategorizer categorizer) {
+        this.pool = pool;
+        this.categorizer = categorizer;
+    }
+
+    public AutoCategorizer getCategorizer() { return categorizer; }
+
+    public void addListener(ExpenseListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ExpenseListener listener) {
+        listeners.remove(listener);
+    }
+
+    void attach(WriteBuffer buffer) {
+        this.writeBuffer = buffer;
+    }
+
+    void detach(WriteBuffer buffer) {
+        if (writeBuffer == buffer) writeBuffer = null;
+    }
+
+    /**
+     * Commits rows still queued in the attached write buffer, so reads and
+     * synchronous writes see (and come after) everything appended so far. Must not
+     * be called while holding the writer connection.
+     */
+    private void awaitWrites() {
+        WriteBuffer buffer = writeBuffer;
+        if (buffer != null) buffer.flush();
+    }
+
+    /**
+     * A read for {@link #readAtWrite}.
+     */
+    interface SqlRead<T> {
+        T read(PooledConnection c) throws SQLException;
+    }
+
+    /**
+     * Lets a listener that keeps state from change events replace it with a fresh
+     * read without missing a change or applying one twice. {@code read} runs without
+     * any lock and sees exactly the writes numbered up to some n; {@code install} then
+     * gets the result and n under {@code lock}, before any later write commits. Events
+     * of writes up to n may still arrive afterwards, and {@link #deliveringWrite()}
+     * tells them apart. Does not flush the write buffer, so it is safe from listeners.
+     * Returns false if the read failed.
+     */
+    <T> boolean readAtWrite(Object lock, SqlRead<T> read, BiConsumer<T, Long> install) {
+        try {
+            // Read on a reader and install only if no writer held the lock meanwhile:
+            // then no committed change can be missing from the read or applied twice.
+            for (int attempt = 0; attempt < RELOAD_ATTEMPTS; attempt++) {
+                long leases = pool.writerLeases();
+                if (leases % 2 != 0) {
+                    // A write is in progress; give it time to commit before trying again.
+                    LockSupport.parkNanos(RELOAD_BACKOFF_NANOS << attempt);
+                    continue;
+                }
+                long write = lastWrite;
+                T result;
+                try (PooledConnection c = pool.reader()) {
+                    result = read.read(c);
+                }
+                synchronized (lock) {
+                    if (pool.writerLeases() == leases) {
+                        install.accept(result, write);
+                        return true;
+                    }
+                }
+            }
+            // Writes keep overlapping: read under the writer lock instead.
+            try (PooledConnection c = pool.writer()) {
+                T result = read.read(c);
+                synchronized (lock) {
+                    install.accept(result, lastWrite);
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            Metrics.sqlError(e);
+            return false;
+        }
+    }
+
+    /**
+     * Number of the write whose events the calling thread is delivering, or
+     * {@code Long.MAX_VALUE} outside event delivery (newer than any read).
+     */
+    long deliveringWrite() {
+        Long write = delivering.get();
+        return write == null ? Long.MAX_VALUE : write;
+    }
+
+    // Runs fire, which calls the listeners, as the delivery of write number {@code write}.
+    private void deliver(long write, Runnable fire) {
+        Long outer = delivering.get();
+        delivering.set(write);
+        try {
+            fire.run();
+        } finally {
+            if (outer == null) delivering.remove();
+            else delivering.set(outer);
+        }
     }
 
     public void createTable() {
@@ -16,65 +166,1010 @@ public class ExpenseDAO {
                 id INTEGER PRIMARY KEY AUTOINCREMENT,
                 description TEXT,
                 category TEXT,
-                amount REAL
+                amount REAL,
+                expense_date TEXT
             )
         """;
-        try (Statement st = conn.createStatement()) {
+        try (Metrics.Sample t = Metrics.time("db.createTable");
+             PooledConnection c = pool.writer();
+             Statement st = c.connection().createStatement()) {
             st.execute(sql);
+            migrateExpenseDate(st);
+            // A derived table and its backfill commit together: if either fails or the
+            // app dies part way, the table is not left behind unfilled, and the next
+            // start creates and backfills it again.
+            inTransaction(st, () -> createSearchIndex(st));
+            inTransaction(st, () -> createTotalsTable(st));
+            inTransaction(st, () -> createRollupTables(st));
         } catch (SQLException e) {
-            e.printStackTrace();
+            Metrics.sqlError(e);
+        }
+    }
+
+    private interface SqlStep {
+        void run() throws SQLException;
+    }
+
+    private static void inTransaction(Statement st, SqlStep step) throws SQLException {
+        Connection conn = st.getConnection();
+        conn.setAutoCommit(false);
+        try {
+            step.run();
+            conn.commit();
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Databases created before expenses were dated get an {@code expense_date} column.
+     * Their existing rows keep a NULL date, since the real dates were never recorded:
+     * they count towards all-time totals but never towards a period, so an upgrade
+     * does not land past spend in the current month. The (date, category, amount)
+     * index lets period totals and budget checks read only the period's index entries.
+     */
+    private void migrateExpenseDate(Statement st) throws SQLException {
+        boolean hasDate = false;
+        try (ResultSet rs = st.executeQuery("PRAGMA table_info(expenses)")) {
+            while (rs.next()) {
+                if ("expense_date".equalsIgnoreCase(rs.getString("name"))) hasDate = true;
+            }
+        }
+        if (!hasDate) {
+            st.execute("ALTER TABLE expenses ADD COLUMN expense_date TEXT");
+        }
+        st.execute("CREATE INDEX IF NOT EXISTS idx_expenses_date_category ON expenses(expense_date, category, amount)");
+    }
+
+    /**
+     * Full-text index over descriptions, kept in sync with {@code expenses} by
+     * triggers. Built from the existing rows the first time it is created.
+     */
+    private void createSearchIndex(Statement st) throws SQLException {
+        boolean exists;
+        try (ResultSet rs = st.executeQuery("SELECT 1 FROM sqlite_master WHERE type='table' AND name='expenses_fts'")) {
+            exists = rs.next();
+        }
+        st.execute("""
+            CREATE VIRTUAL TABLE IF NOT EXISTS expenses_fts USING fts5(
+                description,
+                content='expenses',
+                content_rowid='id',
+                tokenize='unicode61 remove_diacritics 2',
+                prefix='1 2 3 4'
+            )
+        """);
+        st.execute("""
+            CREATE TRIGGER IF NOT EXISTS expenses_fts_insert AFTER INSERT ON expenses BEGIN
+                INSERT INTO expenses_fts(rowid, description) VALUES (new.id, new.description);
+            END
+        """);
+        st.execute("""
+            CREATE TRIGGER IF NOT EXISTS expenses_fts_delete AFTER DELETE ON expenses BEGIN
+                INSERT INTO expenses_fts(expenses_fts, rowid, description) VALUES ('delete', old.id, old.description);
+            END
+        """);
+        st.execute("""
+            CREATE TRIGGER IF NOT EXISTS expenses_fts_update AFTER UPDATE OF description ON expenses BEGIN
+                INSERT INTO expenses_fts(expenses_fts, rowid, description) VALUES ('delete', old.id, old.description);
+                INSERT INTO expenses_fts(rowid, description) VALUES (new.id, new.description);
+            END
+        """);
+        if (!exists) {
+            st.execute("INSERT INTO expenses_fts(expenses_fts) VALUES ('rebuild')");
+        }
+    }
+
+    /**
+     * Per-category running totals, maintained by triggers so category totals never
+     * need a GROUP BY over all expenses. Backfilled the first time it is created.
+     */
+    private void createTotalsTable(Statement st) throws SQLException {
+        boolean exists;
+        try (ResultSet rs = st.executeQuery("SELECT 1 FROM sqlite_master WHERE type='table' AND name='category_totals'")) {
+            exists = rs.next();
+        }
+        st.execute("""
+            CREATE TABLE IF NOT EXISTS category_totals (
+                category TEXT PRIMARY KEY,
+                total REAL NOT NULL,
+                count INTEGER NOT NULL
+            )
+        """);
+        st.execute("""
+            CREATE TRIGGER IF NOT EXISTS category_totals_insert AFTER INSERT ON expenses BEGIN
+                INSERT INTO category_totals(category, total, count) VALUES (IFNULL(new.category, ''), IFNULL(new.amount, 0), 1)
+                ON CONFLICT(category) DO UPDATE SET total = total + excluded.total, count = count + 1;
+            END
+        """);
+        st.execute("""
+            CREATE TRIGGER IF NOT EXISTS category_totals_delete AFTER DELETE ON expenses BEGIN
+                UPDATE category_totals SET total = total - IFNULL(old.amount, 0), count = count - 1
+                WHERE category = IFNULL(old.category, '');
+                DELETE FROM category_totals WHERE category = IFNULL(old.category, '') AND count <= 0;
+            END
+        """);
+        st.execute("""
+            CREATE TRIGGER IF NOT EXISTS category_totals_update AFTER UPDATE OF category, amount ON expenses BEGIN
+                UPDATE category_totals SET total = total - IFNULL(old.amount, 0), count = count - 1
+                WHERE category = IFNULL(old.category, '');
+                DELETE FROM category_totals WHERE category = IFNULL(old.category, '') AND count <= 0;
+                INSERT INTO category_totals(category, total, count) VALUES (IFNULL(new.category, ''), IFNULL(new.amount, 0), 1)
+                ON CONFLICT(category) DO UPDATE SET total = total + excluded.total, count = count + 1;
+            END
+        """);
+        if (!exists) {
+            st.execute("""
+                INSERT INTO category_totals(category, total, count)
+                SELECT IFNULL(category, ''), IFNULL(SUM(amount), 0), COUNT(*) FROM expenses GROUP BY IFNULL(category, '')
+            """);
+        }
+    }
+
+    /**
+     * Daily and monthly totals per category, maintained by triggers like
+     * {@code category_totals}, so trend charts read one row per period and category
+     * however many expenses there are. Backfilled the first time they are created.
+     */
+    private void createRollupTables(Statement st) throws SQLException {
+        createRollupTable(st, "daily_totals", "%s.expense_date");
+        createRollupTable(st, "monthly_totals", "substr(%s.expense_date, 1, 7)");
+    }
+
+    // period is the key expression over a row alias: yyyy-MM-dd or yyyy-MM.
+    private static void createRollupTable(Statement st, String table, String period) throws SQLException {
+        boolean exists;
+        try (ResultSet rs = st.executeQuery("SELECT 1 FROM sqlite_master WHERE type='table' AND name='" + table + "'")) {
+            exists = rs.next();
+        }
+        String newPeriod = period.formatted("new"), oldPeriod = period.formatted("old");
+        String add = """
+                INSERT INTO %1$s(period, category, total, count)
+                SELECT %2$s, IFNULL(new.category, ''), IFNULL(new.amount, 0), 1 WHERE new.expense_date IS NOT NULL
+                ON CONFLICT(period, category) DO UPDATE SET total = total + excluded.total, count = count + 1;
+                """.formatted(table, newPeriod);
+        String remove = """
+                UPDATE %1$s SET total = total - IFNULL(old.amount, 0), count = count - 1
+                WHERE period = %2$s AND category = IFNULL(old.category, '');
+                DELETE FROM %1$s WHERE period = %2$s AND category = IFNULL(old.category, '') AND count <= 0;
+                """.formatted(table, oldPeriod);
+        st.execute("""
+            CREATE TABLE IF NOT EXISTS %s (
+                period TEXT NOT NULL,
+                category TEXT NOT NULL,
+                total REAL NOT NULL,
+                count INTEGER NOT NULL,
+                PRIMARY KEY (period, category)
+            ) WITHOUT ROWID
+        """.formatted(table));
+        st.execute("CREATE TRIGGER IF NOT EXISTS " + table + "_insert AFTER INSERT ON expenses BEGIN\n" + add + "END");
+        st.execute("CREATE TRIGGER IF NOT EXISTS " + table + "_delete AFTER DELETE ON expenses BEGIN\n" + remove + "END");
+        st.execute("CREATE TRIGGER IF NOT EXISTS " + table + "_update AFTER UPDATE OF category, amount, expense_date ON expenses BEGIN\n"
+                + remove + add + "END");
+        if (!exists) {
+            st.execute("""
+                INSERT INTO %s(period, category, total, count)
+                SELECT %s, IFNULL(category, ''), IFNULL(SUM(amount), 0), COUNT(*) FROM expenses e
+                WHERE expense_date IS NOT NULL GROUP BY 1, 2
+            """.formatted(table, period.formatted("e")));
         }
     }
 
     public List<Expense> getAllExpenses() {
+        awaitWrites();
         List<Expense> list = new ArrayList<>();
-        try (Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery("SELECT * FROM expenses")) {
+        try (Metrics.Sample t = Metrics.time("db.getAllExpenses");
+             PooledConnection c = pool.reader();
+             ResultSet rs = c.prepare("SELECT " + COLUMNS + " FROM expenses e").executeQuery()) {
             while (rs.next()) {
-                list.add(new Expense(
-                        rs.getInt("id"),
-                        rs.getString("description"),
-                        rs.getString("category"),
-                        rs.getDouble("amount")
-                ));
+                list.add(readExpense(rs));
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            Metrics.sqlError(e);
         }
         return list;
     }
 
-    public void insertExpense(Expense e) {
-        String sql = "INSERT INTO expenses(description, category, amount) VALUES(?,?,?)";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, e.getDescription());
-            ps.setString(2, e.getCategory());
-            ps.setDouble(3, e.getAmount());
+    /**
+     * Inserts {@code e} and returns its generated id, or -1 if the insert failed.
+     */
+    public int insertExpense(Expense e) {
+        awaitWrites();
+        Expense inserted;
+        long write;
+        try (Metrics.Sample t = Metrics.time("db.insertExpense");
+             PooledConnection c = pool.writer()) {
+            PreparedStatement ps = c.prepare(INSERT_SQL);
+            bind(ps, e);
             ps.executeUpdate();
+            int id;
+            try (ResultSet rs = c.prepare("SELECT last_insert_rowid()").executeQuery()) {
+                id = rs.next() ? rs.getInt(1) : -1;
+            }
+            applyDelta(e.getCategory(), e.getAmount(), 1);
+            write = ++lastWrite;
+            inserted = new Expense(id, e.getDescription(), e.getCategory(), e.getAmount(), e.getDate());
         } catch (SQLException ex) {
-            ex.printStackTrace();
+            Metrics.sqlError(ex);
+            return -1;
         }
+        deliver(write, () -> {
+            for (ExpenseListener l : listeners) l.expenseInserted(inserted);
+        });
+        return inserted.getId();
+    }
+
+    /**
+     * Replaces the description, category, amount and date of the expense with
+     * {@code e.getId()}. Returns false if there is no such expense.
+     */
+    public boolean updateExpense(Expense e) {
+        awaitWrites();
+        Expense before;
+        long write;
+        try (Metrics.Sample t = Metrics.time("db.updateExpense");
+             PooledConnection c = pool.writer()) {
+            before = findById(c, e.getId());
+            if (before == null) return false;
+            PreparedStatement ps = c.prepare(
+                    "UPDATE expenses SET description=?, category=?, amount=?, expense_date=? WHERE id=?");
+            bind(ps, e);
+            ps.setInt(5, e.getId());
+            if (ps.executeUpdate() == 0) return false;
+            applyDelta(before.getCategory(), -before.getAmount(), -1);
+            applyDelta(e.getCategory(), e.getAmount(), 1);
+            write = ++lastWrite;
+        } catch (SQLException ex) {
+            Metrics.sqlError(ex);
+            return false;
+        }
+        deliver(write, () -> {
+            for (ExpenseListener l : listeners) l.expenseUpdated(before, e);
+        });
+        return true;
     }
 
     public void deleteExpense(int id) {
-        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM expenses WHERE id=?")) {
+        awaitWrites();
+        Expense deleted;
+        long write;
+        try (Metrics.Sample t = Metrics.time("db.deleteExpense");
+             PooledConnection c = pool.writer()) {
+            deleted = findById(c, id);
+            if (deleted == null) return;
+            PreparedStatement ps = c.prepare("DELETE FROM expenses WHERE id=?");
             ps.setInt(1, id);
-            ps.executeUpdate();
+            if (ps.executeUpdate() == 0) return;
+            applyDelta(deleted.getCategory(), -deleted.getAmount(), -1);
+            write = ++lastWrite;
         } catch (SQLException ex) {
-            ex.printStackTrace();
+            Metrics.sqlError(ex);
+            return;
         }
+        deliver(write, () -> {
+            for (ExpenseListener l : listeners) l.expenseDeleted(deleted);
+        });
     }
 
+    /**
+     * Inserts {@code rows} in one transaction committed at the given durability and
+     * returns their ids in order. A row that failed gets id -1 and its exception in
+     * {@code errors} (every row does if the commit failed); the others are still
+     * committed. Fires an insert event per row afterwards. The group-commit path of
+     * {@link WriteBuffer}.
+     */
+    int[] insertGroup(List<Expense> rows, WriteBuffer.Durability durability, SQLException[] errors) {
+        int[] ids = new int[rows.size()];
+        Arrays.fill(ids, -1);
+        List<Expense> inserted = new ArrayList<>(rows.size());
+        long write = 0;
+        try (Metrics.Sample t = Metrics.time("db.insertGroup");
+             PooledConnection c = pool.writer();
+             Statement st = c.connection().createStatement()) {
+            Connection conn = c.connection();
+            // synchronous can only change outside a transaction; the pool default is NORMAL.
+            if (durability != WriteBuffer.Durability.NORMAL) st.execute("PRAGMA synchronous=" + durability);
+            try {
+                conn.setAutoCommit(false);
+                PreparedStatement ps = c.prepare(INSERT_SQL);
+                PreparedStatement lastId = c.prepare("SELECT last_insert_rowid()");
+                for (int i = 0; i < rows.size(); i++) {
+                    Expense e = rows.get(i);
+                    try {
+                        bind(ps, e);
+                        ps.executeUpdate();
+                        try (ResultSet rs = lastId.executeQuery()) {
+                            ids[i] = rs.next() ? rs.getInt(1) : -1;
+                        }
+                        inserted.add(new Expense(ids[i], e.getDescription(), e.getCategory(), e.getAmount(), e.getDate()));
+                    } catch (SQLException rowError) {
+                        Metrics.sqlError(rowError);
+                        errors[i] = rowError;
+                    }
+                }
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
+                if (durability != WriteBuffer.Durability.NORMAL) st.execute("PRAGMA synchronous=NORMAL");
+            }
+            for (Expense e : inserted) applyDelta(e.getCategory(), e.getAmount(), 1);
+            write = ++lastWrite;
+        } catch (SQLException ex) {
+            Metrics.sqlError(ex);
+            Arrays.fill(ids, -1);
+            inserted.clear();
+            Arrays.fill(errors, ex);
+        }
+        long groupWrite = write;
+        deliver(groupWrite, () -> {
+            for (Expense e : inserted) {
+                for (ExpenseListener l : listeners) l.expenseInserted(e);
+            }
+        });
+        return ids;
+    }
+
+    private static Expense findById(PooledConnection c, int id) throws SQLException {
+        PreparedStatement find = c.prepare("SELECT " + COLUMNS + " FROM expenses e WHERE e.id=?");
+        find.setInt(1, id);
+        try (ResultSet rs = find.executeQuery()) {
+            return rs.next() ? readExpense(rs) : null;
+        }
+    }
+
+    /**
+     * Total spent per category, served from the in-process aggregate cache —
+     * O(categories), independent of the number of expenses.
+     */
     public Map<String, Double> getCategoryTotals() {
         Map<String, Double> map = new HashMap<>();
-        try (Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery("SELECT category, SUM(amount) as total FROM expenses GROUP BY category")) {
+        loadedTotals().forEach((cat, t) -> map.put(cat, t.total()));
+        return map;
+    }
+
+    /** Number of expenses, from the aggregate cache: O(categories). */
+    public long getExpenseCount() {
+        long count = 0;
+        for (CategoryTotal t : loadedTotals().values()) count += t.count();
+        return count;
+    }
+
+    private Map<String, CategoryTotal> loadedTotals() {
+        awaitWrites();
+        if (totals == null) reloadCategoryTotals();
+        Map<String, CategoryTotal> current = totals;
+        return current == null ? Map.of() : current;
+    }
+
+    /**
+     * Total spent per category on days within {@code range}, summed from the daily
+     * rollup, so the cost follows the number of days, not the number of expenses.
+     */
+    public Map<String, Double> getCategoryTotals(DateRange range) {
+        awaitWrites();
+        Map<String, Double> map = new HashMap<>();
+        try (Metrics.Sample t = Metrics.time("db.getCategoryTotals.range");
+             PooledConnection c = pool.reader()) {
+            PreparedStatement ps = c.prepare("SELECT category, SUM(total) AS total FROM daily_totals "
+                    + "WHERE period >= ? AND period < ? GROUP BY category");
+            ps.setString(1, range.start().toString());
+            ps.setString(2, range.end().toString());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    map.put(rs.getString("category"), rs.getDouble("total"));
+                }
+            }
+        } catch (SQLException e) {
+            Metrics.sqlError(e);
+        }
+        return map;
+    }
+
+    /**
+     * Spend per day and category within {@code range}, from the daily rollup.
+     */
+    public Map<LocalDate, Map<String, Double>> getDailyCategoryTotals(DateRange range) {
+        awaitWrites();
+        try (Metrics.Sample t = Metrics.time("db.getDailyCategoryTotals");
+             PooledConnection c = pool.reader()) {
+            return readDailyTotals(c, range);
+        } catch (SQLException e) {
+            Metrics.sqlError(e);
+            return new TreeMap<>();
+        }
+    }
+
+    static Map<LocalDate, Map<String, Double>> readDailyTotals(PooledConnection c, DateRange range) throws SQLException {
+        Map<LocalDate, Map<String, Double>> map = new TreeMap<>();
+        PreparedStatement ps = c.prepare("SELECT period, category, total FROM daily_totals "
+                + "WHERE period >= ? AND period < ?");
+        ps.setString(1, range.start().toString());
+        ps.setString(2, range.end().toString());
+        try (ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
-                map.put(rs.getString("category"), rs.getDouble("total"));
+                map.computeIfAbsent(LocalDate.parse(rs.getString("period")), d -> new HashMap<>())
+                        .put(rs.getString("category"), rs.getDouble("total"));
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Spend per category in consecutive buckets of {@code bucketDays} days from the
+     * start of {@code range}, keyed by each bucket's first day. Summed in SQL from the
+     * daily rollup, so only one row per bucket and category is read back.
+     */
+    public Map<LocalDate, Map<String, Double>> getBucketedCategoryTotals(DateRange range, int bucketDays) {
+        awaitWrites();
+        Map<LocalDate, Map<String, Double>> map = new TreeMap<>();
+        try (Metrics.Sample t = Metrics.time("db.getBucketedCategoryTotals");
+             PooledConnection c = pool.reader()) {
+            PreparedStatement ps = c.prepare("SELECT CAST(julianday(period) - julianday(?) AS INTEGER) / ? AS bucket, "
+                    + "category, SUM(total) AS total FROM daily_totals "
+                    + "WHERE period >= ? AND period < ? GROUP BY bucket, category");
+            ps.setString(1, range.start().toString());
+            ps.setInt(2, bucketDays);
+            ps.setString(3, range.start().toString());
+            ps.setString(4, range.end().toString());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    map.computeIfAbsent(range.start().plusDays((long) rs.getInt("bucket") * bucketDays), d -> new HashMap<>())
+                            .put(rs.getString("category"), rs.getDouble("total"));
+                }
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            Metrics.sqlError(e);
         }
         return map;
     }
+
+    /**
+     * Spend per month and category from {@code first} to {@code last} inclusive,
+     * from the monthly rollup. Months without expenses are left out.
+     */
+    public Map<YearMonth, Map<String, Double>> getMonthlyCategoryTotals(YearMonth first, YearMonth last) {
+        awaitWrites();
+        Map<YearMonth, Map<String, Double>> map = new TreeMap<>();
+        try (Metrics.Sample t = Metrics.time("db.getMonthlyCategoryTotals");
+             PooledConnection c = pool.reader()) {
+            PreparedStatement ps = c.prepare("SELECT period, category, total FROM monthly_totals "
+                    + "WHERE period >= ? AND period <= ?");
+            ps.setString(1, first.toString());
+            ps.setString(2, last.toString());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    map.computeIfAbsent(YearMonth.parse(rs.getString("period")), m -> new HashMap<>())
+                            .put(rs.getString("category"), rs.getDouble("total"));
+                }
+            }
+        } catch (SQLException e) {
+            Metrics.sqlError(e);
+        }
+        return map;
+    }
+
+    /**
+     * First and last month with any expense, or null when there are none.
+     */
+    public YearMonth[] getMonthSpan() {
+        awaitWrites();
+        try (Metrics.Sample t = Metrics.time("db.getMonthSpan");
+             PooledConnection c = pool.reader();
+             ResultSet rs = c.prepare("SELECT MIN(period), MAX(period) FROM monthly_totals").executeQuery()) {
+            if (rs.next() && rs.getString(1) != null) {
+                return new YearMonth[]{YearMonth.parse(rs.getString(1)), YearMonth.parse(rs.getString(2))};
+            }
+        } catch (SQLException e) {
+            Metrics.sqlError(e);
+        }
+        return null;
+    }
+
+    /**
+     * Re-reads the aggregate cache from {@code category_totals}, e.g. after another
+     * process has written to the database.
+     */
+    public void reloadCategoryTotals() {
+        awaitWrites();
+        try (Metrics.Sample t = Metrics.time("db.reloadCategoryTotals")) {
+            readAtWrite(totalsLock, ExpenseDAO::readTotals, (fresh, write) -> totals = fresh);
+        }
+    }
+
+    private static Map<String, CategoryTotal> readTotals(PooledConnection c) throws SQLException {
+        Map<String, CategoryTotal> map = new ConcurrentHashMap<>();
+        try (ResultSet rs = c.prepare("SELECT category, total, count FROM category_totals").executeQuery()) {
+            while (rs.next()) {
+                map.put(rs.getString("category"), new CategoryTotal(rs.getDouble("total"), rs.getLong("count")));
+            }
+        }
+        return map;
+    }
+
+    // Caller holds the writer connection and has committed the change.
+    private void applyDelta(String category, double amount, int count) {
+        synchronized (totalsLock) {
+            Map<String, CategoryTotal> current = totals;
+            if (current == null) return; // the first load will read it from the table
+            current.compute(category == null ? "" : category, (k, t) -> {
+                long n = (t == null ? 0 : t.count()) + count;
+                return n <= 0 ? null : new CategoryTotal((t == null ? 0 : t.total()) + amount, n);
+            });
+        }
+    }
+
+    /**
+     * Callback for {@link #forEachExpense}; may throw to stop early.
+     */
+    public interface ExpenseVisitor {
+        void visit(Expense e) throws IOException;
+    }
+
+    /**
+     * Streams matching expenses in id order from a forward-only cursor, one row at a
+     * time. Either filter may be null. Returns the number of rows visited.
+     */
+    public long forEachExpense(DateRange range, String category, ExpenseVisitor visitor) throws IOException {
+        awaitWrites();
+        String sql = "SELECT " + COLUMNS + " FROM expenses e WHERE 1=1" + periodFilter(range, category) + " ORDER BY e.id";
+        long rows = 0;
+        try (Metrics.Sample t = Metrics.time("db.forEachExpense");
+             PooledConnection c = pool.reader()) {
+            PreparedStatement ps = c.prepare(sql);
+            bindPeriodFilter(ps, 1, range, category);
+            ps.setFetchSize(1000);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    visitor.visit(readExpense(rs));
+                    rows++;
+                }
+            }
+        } catch (SQLException e) {
+            Metrics.sqlError(e);
+            throw new IOException("Reading expenses failed", e);
+        }
+        return rows;
+    }
+
+    /**
+     * Loads matching expenses (either filter may be null) straight into a columnar
+     * store, without creating an Expense per row.
+     */
+    public ExpenseColumns loadColumns(DateRange range, String category) {
+        awaitWrites();
+        String sql = "SELECT " + COLUMNS + " FROM expenses e WHERE 1=1" + periodFilter(range, category) + " ORDER BY e.id";
+        ExpenseColumns columns = new ExpenseColumns((int) Math.min(Integer.MAX_VALUE - 8, countExpenses(range, category)));
+        Map<String, LocalDate> parsedDates = new HashMap<>(); // few distinct days, many rows
+        try (Metrics.Sample t = Metrics.time("db.loadColumns");
+             PooledConnection c = pool.reader()) {
+            PreparedStatement ps = c.prepare(sql);
+            bindPeriodFilter(ps, 1, range, category);
+            ps.setFetchSize(1000);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Metrics.ROWS_READ.increment();
+                    String date = rs.getString(5);
+                    columns.add(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getDouble(4),
+                            date == null ? null : parsedDates.computeIfAbsent(date, LocalDate::parse));
+                }
+            }
+        } catch (SQLException e) {
+            Metrics.sqlError(e);
+        }
+        return columns;
+    }
+
+    public long countExpenses(DateRange range, String category) {
+        awaitWrites();
+        String sql = "SELECT COUNT(*) FROM expenses e WHERE 1=1" + periodFilter(range, category);
+        try (Metrics.Sample t = Metrics.time("db.countExpenses.range");
+             PooledConnection c = pool.reader()) {
+            PreparedStatement ps = c.prepare(sql);
+            bindPeriodFilter(ps, 1, range, category);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            Metrics.sqlError(e);
+        }
+        return 0;
+    }
+
+    private static String periodFilter(DateRange range, String category) {
+        return (range == null ? "" : " AND e.expense_date >= ? AND e.expense_date < ?")
+                + (category == null ? "" : " AND e.category = ?");
+    }
+
+    private static int bindPeriodFilter(PreparedStatement ps, int index, DateRange range, String category) throws SQLException {
+        if (range != null) {
+            ps.setString(index++, range.start().toString());
+            ps.setString(index++, range.end().toString());
+        }
+        if (category != null) {
+            ps.setString(index++, category);
+        }
+        return index;
+    }
+
+    /**
+     * Keyset page: up to {@code limit} rows with id greater than {@code afterId}, in id
+     * order. A non-empty {@code query} keeps only rows whose description has words
+     * starting with every term of the query (full-text index lookup).
+     *
+     * Pages are not ranked: a row's BM25 score depends on every other row (term
+     * frequencies, average length), so it moves whenever an expense is added and a
+     * rank cursor could skip or repeat rows. {@link #searchRanked} gives the best
+     * matches instead.
+     */
+    public List<Expense> getExpensesAfter(String query, int afterId, int limit) {
+        awaitWrites();
+        List<Expense> list = new ArrayList<>(limit);
+        String match = toMatchQuery(query);
+        String sql = "SELECT " + COLUMNS + " FROM " + from(match)
+                + " WHERE " + key(match) + " > ?" + where(match) + " ORDER BY " + key(match) + " LIMIT ?";
+        try (Metrics.Sample t = Metrics.time("db.getExpensesAfter");
+             PooledConnection c = pool.reader()) {
+            PreparedStatement ps = c.prepare(sql);
+            ps.setInt(1, afterId);
+            int i = bindMatch(ps, 2, match);
+            ps.setInt(i, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(readExpense(rs));
+                }
+            }
+        } catch (SQLException e) {
+            Metrics.sqlError(e);
+        }
+        return list;
+    }
+
+    /**
+     * Id of the row at the given position (0-based, id order) among rows matching the
+     * query, or -1 if there is none. Used to seed a keyset page that was never reached
+     * by scrolling, e.g. after dragging the scroll bar.
+     */
+    public int getIdAtOffset(String query, int offset) {
+        awaitWrites();
+        String match = toMatchQuery(query);
+        String sql = match == null
+                ? "SELECT id FROM expenses ORDER BY id LIMIT 1 OFFSET ?"
+                : "SELECT rowid FROM expenses_fts WHERE expenses_fts MATCH ? ORDER BY rowid LIMIT 1 OFFSET ?";
+        try (Metrics.Sample t = Metrics.time("db.getIdAtOffset");
+             PooledConnection c = pool.reader()) {
+            PreparedStatement ps = c.prepare(sql);
+            int i = bindMatch(ps, 1, match);
+            ps.setInt(i, offset);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) return rs.getInt(1);
+            }
+        } catch (SQLException e) {
+            Metrics.sqlError(e);
+        }
+        return -1;
+    }
+
+    public int countExpenses(String query) {
+        awaitWrites();
+        String match = toMatchQuery(query);
+        String sql = match == null
+                ? "SELECT COUNT(*) FROM expenses"
+                : "SELECT COUNT(*) FROM expenses_fts WHERE expenses_fts MATCH ?";
+        try (Metrics.Sample t = Metrics.time("db.countExpenses");
+             PooledConnection c = pool.reader()) {
+            PreparedStatement ps = c.prepare(sql);
+            bindMatch(ps, 1, match);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) return rs.getInt(1);
+            }
+        } catch (SQLException e) {
+            Metrics.sqlError(e);
+        }
+        return 0;
+    }
+
+    public double getTotalAmount(String query) {
+        awaitWrites();
+        String match = toMatchQuery(query);
+        String sql = "SELECT COALESCE(SUM(e.amount), 0) FROM " + from(match) + " WHERE 1=1" + where(match);
+        try (Metrics.Sample t = Metrics.time("db.getTotalAmount");
+             PooledConnection c = pool.reader()) {
+            PreparedStatement ps = c.prepare(sql);
+            bindMatch(ps, 1, match);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) return rs.getDouble(1);
+            }
+        } catch (SQLException e) {
+            Metrics.sqlError(e);
+        }
+        return 0;
+    }
+
+    /**
+     * Up to {@code limit} best matches for {@code query}, most relevant (lowest BM25
+     * score) first and newest first among equals. Empty when there is nothing to
+     * search for.
+     */
+    public List<Expense> searchRanked(String query, int limit) {
+        awaitWrites();
+        List<Expense> list = new ArrayList<>();
+        String match = toMatchQuery(query);
+        if (match == null) return list;
+        String sql = "SELECT " + COLUMNS + " FROM " + from(match)
+                + " WHERE 1=1" + where(match) + " ORDER BY bm25(expenses_fts), e.id DESC LIMIT ?";
+        try (Metrics.Sample t = Metrics.time("db.searchRanked");
+             PooledConnection c = pool.reader()) {
+            PreparedStatement ps = c.prepare(sql);
+            int i = bindMatch(ps, 1, match);
+            ps.setInt(i, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(readExpense(rs));
+                }
+            }
+        } catch (SQLException e) {
+            Metrics.sqlError(e);
+        }
+        return list;
+    }
+
+    /**
+     * Turns free text into an FTS5 query: every word becomes a quoted prefix term and
+     * all terms must match. Returns null when there is nothing to search for.
+     */
+    static String toMatchQuery(String query) {
+        if (query == null) return null;
+        StringBuilder sb = new StringBuilder();
+        for (String term : query.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (term.isEmpty()) continue;
+            if (sb.length() > 0) sb.append(' ');
+            sb.append('"').append(term).append("\"*");
+        }
+        return sb.length() == 0 ? null : sb.toString();
+    }
+
+    private static String from(String match) {
+        return match == null ? "expenses e" : "expenses_fts f JOIN expenses e ON e.id = f.rowid";
+    }
+
+    private static String where(String match) {
+        return match == null ? "" : " AND expenses_fts MATCH ?";
+    }
+
+    private static String key(String match) {
+        return match == null ? "e.id" : "f.rowid";
+    }
+
+    private static int bindMatch(PreparedStatement ps, int index, String match) throws SQLException {
+        if (match == null) return index;
+        ps.setString(index, match);
+        return index + 1;
+    }
+
+    private static Expense readExpense(ResultSet rs) throws SQLException {
+        Metrics.ROWS_READ.increment();
+        String date = rs.getString("expense_date");
+        return new Expense(
+                rs.getInt("id"),
+                rs.getString("description"),
+                rs.getString("category"),
+                rs.getDouble("amount"),
+                date == null ? null : LocalDate.parse(date)
+        );
+    }
+
+    /**
+     * Bulk-inserts expenses in a single pass, reusing one prepared statement and
+     * committing every {@code batchSize} rows. Rows without a category are
+     * auto-categorized; committed rows that came with one are fed back to the
+     * categorizer.
+     */
+    public ImportResult importExpenses(Iterable<Expense> rows, int batchSize) {
+        try (BulkInsert bulk = new BulkInsert(batchSize)) {
+            long rowNumber = 0;
+            for (Expense e : rows) {
+                bulk.add(++rowNumber, e);
+            }
+            return bulk.finish();
+        }
+    }
+
+    /**
+     * Streams a CSV file (as written by the export, header required) into the database.
+     * Recognised columns are Description, Category, Amount and Date (ISO yyyy-MM-dd;
+     * an empty or missing date leaves the expense undated); anything else is ignored.
+     */
+    public ImportResult importCsv(Path file, int batchSize) throws IOException {
+        try (CsvReader reader = new CsvReader(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+             BulkInsert bulk = new BulkInsert(batchSize)) {
+            List<String> header = reader.readRecord();
+            if (header == null) return new ImportResult(0, List.of(), 0);
+
+            int descIdx = indexOf(header, "description");
+            int catIdx = indexOf(header, "category");
+            int amtIdx = indexOf(header, "amount");
+            int dateIdx = indexOf(header, "date");
+            if (descIdx < 0 || amtIdx < 0) {
+                throw new IOException("CSV header must contain Description and Amount columns");
+            }
+
+            List<String> record;
+            while ((record = reader.readRecord()) != null) {
+                long rowNumber = reader.getRecordNumber();
+                if (record.size() == 1 && record.get(0).isBlank()) continue;
+                try {
+                    String desc = record.get(descIdx).trim();
+                    String cat = catIdx >= 0 && catIdx < record.size() ? record.get(catIdx).trim() : "";
+                    double amount = Double.parseDouble(record.get(amtIdx).trim());
+                    String date = dateIdx >= 0 && dateIdx < record.size() ? record.get(dateIdx).trim() : "";
+                    bulk.add(rowNumber, new Expense(0, desc, cat, amount,
+                            date.isEmpty() ? null : LocalDate.parse(date)));
+                } catch (IndexOutOfBoundsException | NumberFormatException | DateTimeParseException ex) {
+                    bulk.fail(rowNumber, "unparseable row " + record);
+                }
+            }
+            return bulk.finish();
+        }
+    }
+
+    private static int indexOf(List<String> header, String column) {
+        for (int i = 0; i < header.size(); i++) {
+            if (header.get(i).trim().equalsIgnoreCase(column)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * One bulk-insert session. Rows are collected (and for a CSV, parsed) without any
+     * lock; each full chunk takes the writer connection only for its own transaction,
+     * reusing the writer's cached statement, so other writes get in between chunks. A
+     * chunk that fails as a batch is rolled back and replayed row by row so only the
+     * bad rows are reported.
+     */
+    private class BulkInsert implements AutoCloseable {
+        private final int batchSize;
+        private final List<Expense> chunk = new ArrayList<>();
+        private final List<Long> chunkRows = new ArrayList<>();
+        private final List<Boolean> chunkCategorized = new ArrayList<>(); // category came with the row
+        private final List<ImportResult.FailedRow> failures = new ArrayList<>();
+        private final long start = System.nanoTime();
+        private long imported;
+        private long write; // number of the last chunk's commit
+
+        BulkInsert(int batchSize) {
+            awaitWrites();
+            this.batchSize = Math.max(1, batchSize);
+        }
+
+        void add(long rowNumber, Expense e) {
+            if (e == null || e.getDescription() == null || e.getDescription().isBlank()) {
+                fail(rowNumber, "missing description");
+                return;
+            }
+            chunk.add(e);
+            chunkRows.add(rowNumber);
+            chunkCategorized.add(e.getCategory() != null && !e.getCategory().isBlank());
+            if (chunk.size() >= batchSize) flush();
+        }
+
+        void fail(long rowNumber, String reason) {
+            failures.add(new ImportResult.FailedRow(rowNumber, reason));
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) return;
+            categorizeChunk();
+            try (Metrics.Sample t = Metrics.time("db.importChunk");
+                 PooledConnection writer = pool.writer()) {
+                Connection conn = writer.connection();
+                PreparedStatement ps = writer.prepare(INSERT_SQL);
+                try {
+                    conn.setAutoCommit(false);
+                    try {
+                        for (Expense e : chunk) {
+                            bind(ps, e);
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                        conn.commit();
+                        for (int i = 0; i < chunk.size(); i++) committed(i);
+                        imported += chunk.size();
+                    } catch (SQLException batchError) {
+                        ps.clearBatch();
+                        conn.rollback();
+                        replayRowByRow(conn, ps);
+                    }
+                } catch (SQLException ex) {
+                    conn.rollback();
+                    throw ex;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+                write = ++lastWrite;
+            } catch (SQLException ex) {
+                Metrics.sqlError(ex);
+                for (Long row : chunkRows) fail(row, ex.getMessage());
+            }
+            chunk.clear();
+            chunkRows.clear();
+            chunkCategorized.clear();
+        }
+
+        private void replayRowByRow(Connection conn, PreparedStatement ps) throws SQLException {
+            List<Integer> written = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                try {
+                    bind(ps, chunk.get(i));
+                    ps.executeUpdate();
+                    written.add(i);
+                } catch (SQLException rowError) {
+                    fail(chunkRows.get(i), rowError.getMessage());
+                }
+            }
+            conn.commit();
+            for (int i : written) committed(i);
+            imported += written.size();
+        }
+
+        // Caller holds the writer and has committed chunk row i. Only a category the
+        // row came with is learned; learning a suggestion would only reinforce it.
+        private void committed(int i) {
+            Expense e = chunk.get(i);
+            applyDelta(e.getCategory(), e.getAmount(), 1);
+            if (chunkCategorized.get(i)) categorizer.learn(e.getDescription(), e.getCategory(), e.getAmount());
+        }
+
+        /**
+         * Fills in missing categories for the whole chunk at once, in parallel when
+         * the chunk is large. Suggestions use the model as learned up to the
+         * previous chunk.
+         */
+        private void categorizeChunk() {
+            List<Integer> positions = new ArrayList<>();
+            List<String> descriptions = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                if (!chunkCategorized.get(i)) {
+                    positions.add(i);
+                    descriptions.add(chunk.get(i).getDescription());
+                }
+            }
+            if (positions.isEmpty()) return;
+
+            List<String> categories = descriptions.size() >= PARALLEL_CATEGORIZE_THRESHOLD
+                    ? categorizer.categorizeAll(descriptions)
+                    : descriptions.stream().map(categorizer::suggestCategory).toList();
+            for (int i = 0; i < positions.size(); i++) {
+                Expense e = chunk.get(positions.get(i));
+                chunk.set(positions.get(i), new Expense(e.getId(), e.getDescription(), categories.get(i), e.getAmount(), e.getDate()));
+            }
+        }
+
+        ImportResult finish() {
+            flush();
+            failures.sort(Comparator.comparingLong(ImportResult.FailedRow::getRowNumber));
+            return new ImportResult(imported, failures, System.nanoTime() - start);
+        }
+
+        @Override
+        public void close() {
+            if (imported > 0) {
+                deliver(write, () -> {
+                    for (ExpenseListener l : listeners) l.expensesReloaded();
+                });
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Expense e) throws SQLException {
+        ps.setString(1, e.getDescription());
+        ps.setString(2, e.getCategory());
+        ps.setDouble(3, e.getAmount());
+        ps.setString(4, e.getDate() == null ? null : e.getDate().toString());
+    }
 }
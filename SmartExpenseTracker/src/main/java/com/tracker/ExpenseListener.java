@@ -0,0 +1,25 @@
+package com.tracker;
+
+/**
+ * ExpenseListener:
+ * Notified by {@link ExpenseDAO} after a change is committed, on the thread that made
+ * it (never while the writer connection is held). Every method defaults to a no-op.
+ */
+public interface ExpenseListener {
+
+    /** {@code e} carries its generated id. */
+    default void expenseInserted(Expense e) {
+    }
+
+    default void expenseUpdated(Expense before, Expense after) {
+    }
+
+    default void expenseDeleted(Expense e) {
+    }
+
+    /**
+     * Many rows changed at once (e.g. a bulk import); reload rather than apply deltas.
+     */
+    default void expensesReloaded() {
+    }
+}
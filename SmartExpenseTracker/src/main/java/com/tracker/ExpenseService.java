@@ -0,0 +1,173 @@
+package com.tracker;
+
+import javafx.application.Platform;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ExpenseService:
+ * Runs DAO and budget work on a background pool so the JavaFX thread never touches
+ * the database. Every call returns a CompletableFuture; chain UI updates with
+ * {@code thenAcceptAsync(..., ExpenseService.FX)}. Queue wait and run time of each
+ * operation are recorded in {@link Metrics}.
+ */
+public class ExpenseService implements AutoCloseable {
+    /** Executor that runs continuations on the JavaFX application thread. */
+    public static final Executor FX = Platform::runLater;
+
+    private final ExpenseDAO dao;
+    private final BudgetManager budgetManager;
+    private final BudgetEngine budgetEngine;
+    private final WriteBuffer writes;
+    private final ExecutorService executor;
+    private final Map<String, CompletableFuture<?>> latest = new ConcurrentHashMap<>();
+
+    public ExpenseService(ExpenseDAO dao, BudgetManager budgetManager) {
+        this(dao, budgetManager, Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    public ExpenseService(ExpenseDAO dao, BudgetManager budgetManager, int threads) {
+        this(dao, budgetManager, BudgetRule.defaults(), threads);
+    }
+
+    public ExpenseService(ExpenseDAO dao, BudgetManager budgetManager, List<BudgetRule> rules, int threads) {
+        this.dao = dao;
+        this.budgetManager = budgetManager;
+        this.budgetEngine = new BudgetEngine(dao, budgetManager, rules);
+        dao.addListener(budgetEngine);
+        this.writes = new WriteBuffer(dao, WriteBuffer.DEFAULT_MAX_BATCH, WriteBuffer.DEFAULT_MAX_DELAY,
+                WriteBuffer.Durability.fromSystemProperties());
+        AtomicInteger n = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "db-worker-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public ExpenseDAO getDao() { return dao; }
+    public BudgetManager getBudgetManager() { return budgetManager; }
+    public BudgetEngine getBudgetEngine() { return budgetEngine; }
+    public WriteBuffer getWriteBuffer() { return writes; }
+
+    /** Executor for callers that schedule their own background reads (e.g. table paging). */
+    public Executor executor() { return executor; }
+
+    /**
+     * Runs {@code work} in the background, timing it as {@code operation}.
+     * A future cancelled before the work starts skips the work entirely.
+     */
+    public <T> CompletableFuture<T> submit(String operation, Callable<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long queued = System.nanoTime();
+        executor.execute(() -> {
+            if (future.isDone()) return;
+            long start = System.nanoTime();
+            Metrics.timer(operation + ".wait").record(start - queued);
+            try {
+                future.complete(work.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                Metrics.timer(operation).record(System.nanoTime() - start);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Like {@link #submit}, but cancels any earlier request with the same key that has
+     * not finished yet, so only the newest result (e.g. of a search) reaches the UI.
+     */
+    public <T> CompletableFuture<T> submitLatest(String key, String operation, Callable<T> work) {
+        CompletableFuture<T> future = submit(operation, work);
+        CompletableFuture<?> previous = latest.put(key, future);
+        if (previous != null) previous.cancel(false);
+        future.whenComplete((r, t) -> latest.remove(key, future));
+        return future;
+    }
+
+    // === Expenses ===
+
+    /**
+     * Completes with the generated id once the row's group commit is durable. Rapid
+     * inserts share one transaction through the {@link WriteBuffer}.
+     */
+    public CompletableFuture<Integer> insertExpense(Expense e) {
+        return writes.append(e);
+    }
+
+    public CompletableFuture<Boolean> updateExpense(Expense e) {
+        return submit("dao.updateExpense", () -> dao.updateExpense(e));
+    }
+
+    public CompletableFuture<Void> deleteExpense(int id) {
+        return submit("dao.deleteExpense", () -> {
+            dao.deleteExpense(id);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Map<String, Double>> getCategoryTotals() {
+        return submitLatest("categoryTotals", "dao.getCategoryTotals", dao::getCategoryTotals);
+    }
+
+    public CompletableFuture<Double> getTotalAmount(String query) {
+        return submitLatest("totalAmount", "dao.getTotalAmount", () -> dao.getTotalAmount(query));
+    }
+
+    public CompletableFuture<ImportResult> importCsv(java.nio.file.Path file) {
+        return submit("dao.importCsv", () -> {
+            ImportResult result = dao.importCsv(file, ExpenseDAO.DEFAULT_BATCH_SIZE);
+            dao.getCategorizer().flush();
+            return result;
+        });
+    }
+
+    /**
+     * Re-reads category totals and budget spend after the database changed behind
+     * the DAO's back.
+     */
+    public CompletableFuture<Void> reloadTotals() {
+        return submit("dao.reloadCategoryTotals", () -> {
+            dao.reloadCategoryTotals();
+            budgetEngine.reload();
+            return null;
+        });
+    }
+
+    // === Budgets ===
+
+    public CompletableFuture<Double> getBudget(String category) {
+        return submit("budget.getBudget", () -> budgetManager.getBudget(category));
+    }
+
+    public CompletableFuture<Map<String, Double>> getAllBudgets() {
+        return submit("budget.getAllBudgets", budgetManager::getAllBudgets);
+    }
+
+    /** Every budget rule currently met, for one summary after a batch of changes. */
+    public CompletableFuture<List<BudgetAlert>> checkBudgets() {
+        return submit("budget.checkAll", budgetEngine::evaluateAll);
+    }
+
+    public CompletableFuture<Void> setBudget(String category, double limit) {
+        return submit("budget.setBudget", () -> {
+            budgetManager.setBudget(category, limit);
+            return null;
+        });
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writes.close();
+    }
+}
@@ -0,0 +1,54 @@
+package com.tracker;
+
+import java.util.*;
+
+/**
+ * ImportResult:
+ * Summary of a bulk import — how many rows were written, which rows failed and why,
+ * and the overall throughput.
+ */
+public class ImportResult {
+
+    public static class FailedRow {
+        private final long rowNumber;
+        private final String reason;
+
+        public FailedRow(long rowNumber, String reason) {
+            this.rowNumber = rowNumber;
+            this.reason = reason;
+        }
+
+        public long getRowNumber() { return rowNumber; }
+        public String getReason() { return reason; }
+
+        @Override
+        public String toString() {
+            return "row " + rowNumber + ": " + reason;
+        }
+    }
+
+    private final long imported;
+    private final List<FailedRow> failures;
+    private final long elapsedNanos;
+
+    public ImportResult(long imported, List<FailedRow> failures, long elapsedNanos) {
+        this.imported = imported;
+        this.failures = List.copyOf(failures);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getImported() { return imported; }
+    public List<FailedRow> getFailures() { return failures; }
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    public double getRowsPerSecond() {
+        if (elapsedNanos <= 0) return 0;
+        return imported / (elapsedNanos / 1_000_000_000.0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Imported %d rows (%d failed) in %.2fs, %.0f rows/sec",
+                imported, failures.size(), elapsedNanos / 1_000_000_000.0, getRowsPerSecond());
+    }
+}
@@ -0,0 +1,79 @@
+package com.tracker;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Json:
+ * Minimal JSON writer for the API's flat responses (no parsing, no dependency).
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    static StringBuilder string(StringBuilder sb, String s) {
+        if (s == null) return sb.append("null");
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        return sb.append('"');
+    }
+
+    static StringBuilder number(StringBuilder sb, double d) {
+        return Double.isFinite(d) ? sb.append(d) : sb.append("null");
+    }
+
+    static StringBuilder expense(StringBuilder sb, Expense e) {
+        sb.append("{\"id\":").append(e.getId()).append(",\"date\":");
+        string(sb, e.getDate() == null ? null : e.getDate().toString()).append(",\"description\":");
+        string(sb, e.getDescription()).append(",\"category\":");
+        string(sb, e.getCategory()).append(",\"amount\":");
+        return number(sb, e.getAmount()).append('}');
+    }
+
+    static StringBuilder expenses(StringBuilder sb, Collection<Expense> list) {
+        sb.append('[');
+        boolean first = true;
+        for (Expense e : list) {
+            if (!first) sb.append(',');
+            expense(sb, e);
+            first = false;
+        }
+        return sb.append(']');
+    }
+
+    static StringBuilder amounts(StringBuilder sb, Map<String, Double> map) {
+        sb.append('{');
+        boolean first = true;
+        for (Map.Entry<String, Double> e : map.entrySet()) {
+            if (!first) sb.append(',');
+            string(sb, e.getKey()).append(':');
+            number(sb, e.getValue());
+            first = false;
+        }
+        return sb.append('}');
+    }
+
+    static StringBuilder alert(StringBuilder sb, BudgetAlert a) {
+        sb.append("{\"category\":");
+        string(sb, a.category()).append(",\"period\":");
+        string(sb, a.rule().period().name()).append(",\"threshold\":");
+        number(sb, a.rule().thresholdPercent()).append(",\"limit\":");
+        number(sb, a.limit()).append(",\"spent\":");
+        number(sb, a.spent()).append(",\"exceeded\":").append(a.isExceeded());
+        return sb.append('}');
+    }
+}
@@ -0,0 +1,103 @@
+package com.tracker;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * KeywordMatcher:
+ * A growable set of patterns backed by Aho-Corasick automata.
+ *
+ * Rebuilding one automaton on every {@link #add} would cost O(total pattern length)
+ * per insert, so patterns are kept in levels of at most 1, 2, 4, 8... patterns (the
+ * logarithmic method): adding a pattern merges full levels like a binary counter.
+ * Each pattern is recompiled O(log n) times overall and a lookup scans at most
+ * O(log n) automata. Removed patterns are filtered out on match, left out whenever
+ * their level is merged, and dropped for good once they exceed half the live ones;
+ * one that is added back before that is revived in place.
+ *
+ * Thread-safe: updates are serialized and publish a new immutable array of levels,
+ * so {@link #forEachMatch} runs without locking against a consistent snapshot.
+ */
+public class KeywordMatcher {
+    private volatile AhoCorasick[] levels = new AhoCorasick[0]; // levels[i] has at most 2^i patterns or is null
+    private final Set<String> live = ConcurrentHashMap.newKeySet();
+    private final Set<String> indexed = new HashSet<>(); // in some level, live or not; guarded by this
+    private volatile int dead; // indexed but not live
+
+    public synchronized boolean add(String pattern) {
+        if (pattern == null || pattern.isEmpty() || !live.add(pattern)) return false;
+        if (!indexed.add(pattern)) {
+            dead--; // its removed copy is still in a level
+            return true;
+        }
+        AhoCorasick[] next = Arrays.copyOf(levels, levels.length + 1);
+        List<String> carry = new ArrayList<>();
+        carry.add(pattern);
+        int i = 0;
+        while (next[i] != null) {
+            for (String p : next[i].patterns()) {
+                if (live.contains(p)) {
+                    carry.add(p);
+                } else {
+                    indexed.remove(p);
+                    dead--;
+                }
+            }
+            next[i] = null;
+            i++;
+        }
+        next[i] = new AhoCorasick(carry);
+        levels = next[next.length - 1] == null ? Arrays.copyOf(next, next.length - 1) : next;
+        return true;
+    }
+
+    public synchronized boolean remove(String pattern) {
+        if (!live.remove(pattern)) return false;
+        if (++dead > live.size() / 2) rebuild();
+        return true;
+    }
+
+    public boolean contains(String pattern) {
+        return live.contains(pattern);
+    }
+
+    public int size() {
+        return live.size();
+    }
+
+    /**
+     * Calls {@code onMatch} with every live pattern that occurs in {@code text}.
+     */
+    public void forEachMatch(String text, Consumer<String> onMatch) {
+        boolean filter = dead > 0;
+        for (AhoCorasick level : levels) {
+            if (level == null) continue;
+            level.match(text, idx -> {
+                String p = level.pattern(idx);
+                if (!filter || live.contains(p)) onMatch.accept(p);
+            });
+        }
+    }
+
+    // Caller holds the monitor.
+    private void rebuild() {
+        List<String> all = new ArrayList<>(live);
+        List<AhoCorasick> rebuilt = new ArrayList<>();
+        // Same binary-counter layout as add(): level i holds 2^i patterns.
+        int from = 0;
+        for (int i = 0; from < all.size(); i++) {
+            int size = 1 << i;
+            if ((all.size() & size) != 0) {
+                rebuilt.add(new AhoCorasick(all.subList(from, from + size)));
+                from += size;
+            } else {
+                rebuilt.add(null);
+            }
+        }
+        levels = rebuilt.toArray(new AhoCorasick[0]);
+        indexed.clear();
+        indexed.addAll(all);
+        dead = 0;
+    }
+}
@@ -0,0 +1,292 @@
+package com.tracker;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * LedgerRouter:
+ * Routes each ledger (a person or cost centre) to its own SQLite file,
+ * {@code <dir>/<name>.db}, with its own {@link ConnectionPool}, {@link ExpenseDAO}
+ * and {@link BudgetManager}. Ledgers never share a writer lock, so writes to
+ * different ledgers run in parallel.
+ *
+ * Ledgers are opened on first use and kept in an LRU of at most {@code maxOpen};
+ * the least recently used one is closed when another has to be opened. Opening a
+ * file (pool, schema setup) happens outside the router lock, so different ledgers
+ * open in parallel while callers of the same one wait for a single open. A ledger
+ * is borrowed with {@link #open(String)} and returned by closing it, and one that
+ * is evicted while borrowed stays open until its last borrower returns it.
+ *
+ * Cross-ledger queries ({@link #fanOut}, {@link #getCategoryTotals}) run on every
+ * ledger in parallel and merge the results.
+ */
+@SuppressWarnings("try") // Metrics.Sample
+public class LedgerRouter implements AutoCloseable {
+    public static final int DEFAULT_MAX_OPEN = 16;
+    private static final long CLOSE_WAIT_SECONDS = 30;
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_.-]{0,63}");
+    private static final String SUFFIX = ".db";
+
+    /**
+     * A borrowed ledger. Closing it returns it to the router; the pool itself is
+     * closed by the router.
+     */
+    public final class Ledger implements AutoCloseable {
+        private final String name;
+        private final ConnectionPool pool;
+        private final ExpenseDAO dao;
+        private final BudgetManager budgets;
+        private int borrowers; // guarded by the router
+        private boolean evicted;
+
+        private Ledger(String name, ConnectionPool pool) {
+            this.name = name;
+            this.pool = pool;
+            this.dao = new ExpenseDAO(pool);
+            this.budgets = new BudgetManager(pool);
+            dao.createTable();
+        }
+
+        public String name() { return name; }
+        public ConnectionPool pool() { return pool; }
+        public ExpenseDAO dao() { return dao; }
+        public BudgetManager budgets() { return budgets; }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+    }
+
+    private final Path dir;
+    private final int maxOpen;
+    private final ExecutorService workers;
+    private final Map<String, Ledger> open;
+    private final Map<String, Ledger> draining = new HashMap<>(); // evicted but still borrowed
+    private final Map<String, CompletableFuture<Ledger>> opening = new HashMap<>(); // being opened, outside the lock
+    private boolean closed;
+
+    public LedgerRouter(Path dir) {
+        this(dir, DEFAULT_MAX_OPEN, Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public LedgerRouter(Path dir, int maxOpen, int threads) {
+        this.dir = dir;
+        this.maxOpen = Math.max(1, maxOpen);
+        this.open = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Ledger> eldest) {
+                if (size() <= LedgerRouter.this.maxOpen) return false;
+                evict(eldest.getValue());
+                return true;
+            }
+        };
+        AtomicInteger n = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "ledger-worker-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create ledger directory " + dir, e);
+        }
+    }
+
+    /**
+     * Database file of the ledger called {@code name}, whether or not it exists yet.
+     */
+    public Path fileOf(String name) {
+        return fileOf(dir, name);
+    }
+
+    /**
+     * File of ledger {@code name} under {@code dir}. Names are letters, digits, '_',
+     * '-' and '.', so they cannot escape the directory.
+     */
+    public static Path fileOf(Path dir, String name) {
+        if (name == null || !NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid ledger name: " + name);
+        }
+        return dir.resolve(name + SUFFIX);
+    }
+
+    /**
+     * Names of all ledgers in the directory, sorted.
+     */
+    public List<String> ledgers() {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(f -> f.endsWith(SUFFIX))
+                    .map(f -> f.substring(0, f.length() - SUFFIX.length()))
+                    .filter(name -> NAME.matcher(name).matches())
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list ledgers in " + dir, e);
+        }
+    }
+
+    /**
+     * Borrows the ledger called {@code name}, creating its file on first use.
+     * Close the returned ledger when done with it.
+     */
+    public Ledger open(String name) {
+        Path file = fileOf(name);
+        while (true) {
+            CompletableFuture<Ledger> created = new CompletableFuture<>();
+            CompletableFuture<Ledger> pending;
+            synchronized (this) {
+                Ledger ledger = borrowIfOpen(name);
+                if (ledger != null) return ledger;
+                pending = opening.putIfAbsent(name, created);
+            }
+            if (pending != null) {
+                awaitOpen(pending); // then borrow it like any open ledger
+                continue;
+            }
+            Ledger ledger;
+            try (Metrics.Sample t = Metrics.time("ledger.open")) {
+                ledger = new Ledger(name, new ConnectionPool("jdbc:sqlite:" + file));
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    opening.remove(name);
+                }
+                created.completeExceptionally(e);
+                throw e;
+            }
+            synchronized (this) {
+                opening.remove(name);
+                if (closed) {
+                    ledger.pool.close();
+                    IllegalStateException e = new IllegalStateException("Ledger router is closed: " + dir);
+                    created.completeExceptionally(e);
+                    throw e;
+                }
+                open.put(name, ledger);
+                ledger.borrowers++;
+            }
+            created.complete(ledger);
+            return ledger;
+        }
+    }
+
+    // Caller holds the router lock.
+    private Ledger borrowIfOpen(String name) {
+        if (closed) throw new IllegalStateException("Ledger router is closed: " + dir);
+        Ledger ledger = open.get(name);
+        if (ledger == null && (ledger = draining.remove(name)) != null) {
+            ledger.evicted = false; // never two pools on one file
+            open.put(name, ledger);
+        }
+        if (ledger != null) ledger.borrowers++;
+        return ledger;
+    }
+
+    private static void awaitOpen(CompletableFuture<Ledger> pending) {
+        try {
+            pending.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    /** Number of ledger files currently open, including evicted ones still borrowed. */
+    public synchronized int openCount() {
+        return open.size() + draining.size();
+    }
+
+    // === Fan-out ===
+
+    /**
+     * Runs {@code query} on each named ledger in parallel and returns the results by
+     * ledger name, in the order given. The first failure is rethrown.
+     */
+    public <T> Map<String, T> fanOut(Collection<String> names, Function<Ledger, T> query) {
+        Map<String, Future<T>> futures = new LinkedHashMap<>();
+        for (String name : names) {
+            fileOf(name); // reject bad names before anything runs
+            futures.put(name, workers.submit(() -> {
+                try (Ledger ledger = open(name)) {
+                    return query.apply(ledger);
+                }
+            }));
+        }
+        Map<String, T> results = new LinkedHashMap<>();
+        try (Metrics.Sample t = Metrics.time("ledger.fanOut")) {
+            for (Map.Entry<String, Future<T>> e : futures.entrySet()) {
+                results.put(e.getKey(), e.getValue().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.values().forEach(f -> f.cancel(false));
+            throw new IllegalStateException("Interrupted during cross-ledger query", e);
+        } catch (ExecutionException e) {
+            futures.values().forEach(f -> f.cancel(false));
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Total per category summed over every ledger, for all time when {@code range}
+     * is null.
+     */
+    public Map<String, Double> getCategoryTotals(DateRange range) {
+        Map<String, Double> merged = new HashMap<>();
+        getCategoryTotalsByLedger(ledgers(), range).values()
+                .forEach(totals -> totals.forEach((cat, total) -> merged.merge(cat, total, Double::sum)));
+        return merged;
+    }
+
+    public Map<String, Map<String, Double>> getCategoryTotalsByLedger(Collection<String> names, DateRange range) {
+        return fanOut(names, l -> range == null ? l.dao().getCategoryTotals() : l.dao().getCategoryTotals(range));
+    }
+
+    // === Lifecycle ===
+
+    private synchronized void release(Ledger ledger) {
+        ledger.borrowers--;
+        if (ledger.evicted && ledger.borrowers == 0) {
+            draining.remove(ledger.name);
+            ledger.pool.close();
+        }
+    }
+
+    // Called with the router lock held, from removeEldestEntry or close().
+    private void evict(Ledger ledger) {
+        ledger.evicted = true;
+        Metrics.counter("ledger.evictions").increment();
+        if (ledger.borrowers == 0) ledger.pool.close();
+        else draining.put(ledger.name, ledger);
+    }
+
+    /**
+     * Lets running fan-out queries finish, then closes every ledger that is not
+     * borrowed; the rest close when returned.
+     */
+    @Override
+    public void close() {
+        workers.shutdown();
+        try {
+            workers.awaitTermination(CLOSE_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            closed = true;
+            open.values().forEach(this::evict);
+            open.clear();
+        }
+    }
+}
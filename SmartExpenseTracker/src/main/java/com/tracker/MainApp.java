@@ -1,38 +1,66 @@
 package com.tracker;
 
+import javafx.animation.*;
 import javafx.application.Application;
-import javafx.collections.*;
+import javafx.application.Platform;
+import javafx.beans.property.SimpleStringProperty;
 import javafx.geometry.*;
 import javafx.scene.Scene;
 import javafx.scene.chart.*;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.*;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
-import java.io.FileWriter;
+import java.io.File;
 import java.io.IOException;
-
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@SuppressWarnings("try") // Metrics.Sample
 public class MainApp extends Application {
 
+    private static final String[] CATEGORIES =
+            {"Food", "Transport", "Utilities", "Entertainment", "Health", "Shopping", "Education", "Other"};
+
     private TableView<Expense> table;
-    private ObservableList<Expense> expenses;
+    private PagedExpenseList expenses;
+    private String currentQuery = "";
     private PieChart pieChart;
     private ExpenseDAO dao;
     private BudgetManager budgetManager;
+    private ExpenseService service;
+    private ApiServer api;
     private Label totalLabel;
+    private TextField searchField;
+    private HBox buttons;
+    private Alert loadErrorAlert;
+    private CompletableFuture<StartupSnapshot> startup;
+
+    // What the chart and total label show, so single changes can be applied as deltas.
+    // An update that is still loading wins over deltas: they re-request it instead.
+    private final Map<String, PieChart.Data> slices = new HashMap<>();
+    private double shownTotal;
+    private boolean chartLoading;
+    private boolean totalLoading;
 
     @Override
     public void start(Stage stage) {
-        dao = new ExpenseDAO();
-        dao.createTable();
-        budgetManager = new BudgetManager();
-        expenses = FXCollections.observableArrayList(dao.getAllExpenses());
+        Metrics.configureFromSystemProperties();
 
         // === Table ===
         table = new TableView<>();
-        table.setItems(expenses);
-        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        table.setPlaceholder(new Label("Loading expenses..."));
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
 
         TableColumn<Expense, String> descCol = new TableColumn<>("Description");
         descCol.setCellValueFactory(new PropertyValueFactory<>("description"));
@@ -43,12 +71,16 @@ public class MainApp extends Application {
         TableColumn<Expense, Double> amtCol = new TableColumn<>("Amount");
         amtCol.setCellValueFactory(new PropertyValueFactory<>("amount"));
 
-        table.getColumns().addAll(descCol, catCol, amtCol);
+        TableColumn<Expense, LocalDate> dateCol = new TableColumn<>("Date");
+        dateCol.setCellValueFactory(new PropertyValueFactory<>("date"));
+
+        table.getColumns().addAll(List.of(dateCol, descCol, catCol, amtCol));
+        // Rows are paged from the database in id order, so in-memory sorting is off.
+        table.getColumns().forEach(col -> col.setSortable(false));
 
         // === Chart ===
         pieChart = new PieChart();
         pieChart.setTitle("Category Breakdown");
-        updateChart();
 
         VBox leftPanel = new VBox(15,
                 new Label("📊 Category Breakdown"),
@@ -62,13 +94,17 @@ public class MainApp extends Application {
         Label headerTitle = new Label("💰 Smart Expense Tracker");
         headerTitle.setStyle("-fx-font-size: 22px; -fx-font-weight: bold; -fx-text-fill: #ffffff;");
 
-        totalLabel = new Label();
+        totalLabel = new Label("Loading...");
         totalLabel.setStyle("-fx-font-size: 16px; -fx-text-fill: #00e676;");
-        updateTotal();
 
-        TextField searchField = new TextField();
+        searchField = new TextField();
         searchField.setPromptText("Search by description...");
-        searchField.textProperty().addListener((obs, oldVal, newVal) -> filterExpenses(newVal));
+        // Debounce: only search once typing pauses.
+        PauseTransition searchDelay = new PauseTransition(Duration.millis(150));
+        searchField.textProperty().addListener((obs, oldVal, newVal) -> {
+            searchDelay.setOnFinished(e -> filterExpenses(newVal));
+            searchDelay.playFromStart();
+        });
 
         HBox header = new HBox(20, headerTitle, new Region(), searchField, totalLabel);
         header.setPadding(new Insets(15));
@@ -78,20 +114,30 @@ public class MainApp extends Application {
         // === Buttons ===
         Button addBtn = new Button("➕ Add Expense");
         Button delBtn = new Button("🗑 Delete Selected");
+        Button importBtn = new Button("📥 Import CSV");
         Button exportBtn = new Button("📤 Export CSV");
         Button refreshBtn = new Button("🔄 Refresh");
         Button budgetBtn = new Button("💵 Set Budget");
+        Button trendsBtn = new Button("📈 Trends");
+        Button diagBtn = new Button("📊 Diagnostics");
 
         addBtn.setOnAction(e -> showAddDialog());
         delBtn.setOnAction(e -> deleteSelected());
-        exportBtn.setOnAction(e -> exportCSV());
-        refreshBtn.setOnAction(e -> refreshData());
+        importBtn.setOnAction(e -> importCSV(stage));
+        exportBtn.setOnAction(e -> exportCSV(stage));
+        refreshBtn.setOnAction(e -> service.reloadTotals().thenRunAsync(this::refreshData, ExpenseService.FX));
         budgetBtn.setOnAction(e -> showBudgetDialog());
+        trendsBtn.setOnAction(e -> showTrends());
+        diagBtn.setOnAction(e -> showDiagnostics());
 
-        HBox buttons = new HBox(12, addBtn, delBtn, exportBtn, refreshBtn, budgetBtn);
+        buttons = new HBox(12, addBtn, delBtn, importBtn, exportBtn, refreshBtn, budgetBtn, trendsBtn, diagBtn);
         buttons.setAlignment(Pos.CENTER);
         buttons.setPadding(new Insets(15));
 
+        // Everything that needs the database waits until it is open.
+        searchField.setDisable(true);
+        buttons.setDisable(true);
+
         // === Layout ===
         BorderPane root = new BorderPane();
         root.setTop(header);
@@ -105,6 +151,91 @@ public class MainApp extends Application {
         stage.setTitle("Smart Expense Tracker");
         stage.setScene(scene);
         stage.show();
+
+        startup = CompletableFuture.supplyAsync(this::openDatabase, MainApp::runStartup);
+        startup.whenCompleteAsync((snapshot, error) -> {
+            if (error == null) {
+                showData(snapshot);
+                return;
+            }
+            Metrics.error("ui.startup", error);
+            table.setPlaceholder(new Label("Could not open the database"));
+            totalLabel.setText("");
+            new Alert(Alert.AlertType.ERROR, "Could not open the database: " + rootCause(error).getMessage()).show();
+        }, ExpenseService.FX);
+    }
+
+    private static void runStartup(Runnable r) {
+        Thread t = new Thread(r, "db-startup");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Opens the database and the services on it, off the JavaFX thread. Returns the
+     * startup snapshot, or null if there is no valid one.
+     */
+    private StartupSnapshot openDatabase() {
+        try (Metrics.Sample t = Metrics.time("ui.startup")) {
+            dao = new ExpenseDAO();
+            dao.createTable();
+            budgetManager = new BudgetManager();
+            // Valid only if nothing has written to the database since it was taken.
+            StartupSnapshot snapshot = StartupSnapshot.read(DBHelper.pool());
+            if (snapshot != null) budgetManager.preload(snapshot.budgets());
+            service = new ExpenseService(dao, budgetManager);
+            return snapshot;
+        }
+    }
+
+    /**
+     * Fills the window once the database is open: from the snapshot when there is
+     * one, otherwise by loading in the background as usual.
+     */
+    private void showData(StartupSnapshot snapshot) {
+        service.getBudgetEngine().addListener(alert -> Platform.runLater(() -> showBudgetAlert(alert)));
+        dao.addListener(new ExpenseListener() {
+            @Override
+            public void expenseInserted(Expense e) { Platform.runLater(() -> applyInsert(e)); }
+
+            @Override
+            public void expenseUpdated(Expense before, Expense after) { Platform.runLater(() -> applyUpdate(before, after)); }
+
+            @Override
+            public void expenseDeleted(Expense e) { Platform.runLater(() -> applyDelete(e)); }
+
+            @Override
+            public void expensesReloaded() { Platform.runLater(MainApp.this::refreshData); }
+        });
+        service.submit("categorizer.load", () -> {
+            if (snapshot == null) dao.getCategorizer().attach(new CategorizerStore());
+            else dao.getCategorizer().attach(new CategorizerStore(), snapshot.patterns(), snapshot.stats());
+            return null;
+        });
+        expenses = snapshot == null
+                ? new PagedExpenseList(pageSource(currentQuery), service.executor())
+                : new PagedExpenseList(pageSource(currentQuery), service.executor(),
+                        (int) snapshot.expenseCount(), snapshot.firstPage());
+        expenses.setOnLoadError(this::showLoadError);
+        table.setItems(expenses);
+        table.setPlaceholder(null);
+        if (snapshot == null) {
+            updateChart();
+            updateTotal();
+        } else {
+            showChart(snapshot.categoryTotals());
+            shownTotal = snapshot.totalAmount();
+            showTotal();
+        }
+        startApi();
+        searchField.setDisable(false);
+        buttons.setDisable(false);
+    }
+
+    private void showLoadError(Throwable error) {
+        if (loadErrorAlert != null && loadErrorAlert.isShowing()) return; // one at a time while scrolling
+        loadErrorAlert = new Alert(Alert.AlertType.ERROR, "Could not load expenses: " + rootCause(error).getMessage());
+        loadErrorAlert.show();
     }
 
     private void showAddDialog() {
@@ -117,9 +248,11 @@ public class MainApp extends Application {
         TextField amtField = new TextField();
         Label catLabel = new Label("Category:");
         TextField catField = new TextField();
+        Label dateLabel = new Label("Date:");
+        DatePicker datePicker = new DatePicker(LocalDate.now());
 
         Button suggestBtn = new Button("Auto Suggest");
-        suggestBtn.setOnAction(e -> catField.setText(AutoCategorizer.suggestCategory(descField.getText())));
+        suggestBtn.setOnAction(e -> catField.setText(dao.getCategorizer().suggestCategory(descField.getText())));
 
         GridPane grid = new GridPane();
         grid.setHgap(10);
@@ -127,6 +260,7 @@ public class MainApp extends Application {
         grid.addRow(0, descLabel, descField);
         grid.addRow(1, amtLabel, amtField);
         grid.addRow(2, catLabel, catField, suggestBtn);
+        grid.addRow(3, dateLabel, datePicker);
         grid.setPadding(new Insets(10));
 
         dialog.getDialogPane().setContent(grid);
@@ -137,8 +271,9 @@ public class MainApp extends Application {
         dialog.setResultConverter(bt -> {
             if (bt == addType) {
                 try {
+                    LocalDate date = datePicker.getValue() == null ? LocalDate.now() : datePicker.getValue();
                     return new Expense(0, descField.getText(), catField.getText(),
-                            Double.parseDouble(amtField.getText()));
+                            Double.parseDouble(amtField.getText()), date);
                 } catch (Exception e) {
                     new Alert(Alert.AlertType.ERROR, "Invalid input!").show();
                 }
@@ -146,66 +281,252 @@ public class MainApp extends Application {
             return null;
         });
 
-        dialog.showAndWait().ifPresent(exp -> {
-            dao.insertExpense(exp);
-            AutoCategorizer.learn(exp.getDescription(), exp.getCategory(), exp.getAmount());
-            refreshData();
-            checkBudgetAlert(exp.getCategory());
-        });
+        // Learn the category only from an expense that was actually stored.
+        dialog.showAndWait().ifPresent(exp -> service.insertExpense(exp).whenCompleteAsync((id, error) -> {
+            if (error != null) {
+                Platform.runLater(() ->
+                        new Alert(Alert.AlertType.ERROR, "Could not add expense: " + rootCause(error).getMessage()).show());
+                return;
+            }
+            dao.getCategorizer().learn(exp.getDescription(), exp.getCategory(), exp.getAmount());
+            dao.getCategorizer().flush();
+        }, service.executor()));
     }
 
     private void deleteSelected() {
         Expense selected = table.getSelectionModel().getSelectedItem();
-        if (selected != null) {
-            dao.deleteExpense(selected.getId());
-            refreshData();
-        }
+        if (selected == null) return;
+        // The DAO's delete event updates the table, chart and total.
+        service.deleteExpense(selected.getId()).whenCompleteAsync((v, error) -> {
+            if (error == null) return;
+            Metrics.error("ui.deleteExpense", error);
+            new Alert(Alert.AlertType.ERROR, "Could not delete expense: " + rootCause(error).getMessage()).show();
+        }, ExpenseService.FX);
     }
 
     private void refreshData() {
-        expenses.setAll(dao.getAllExpenses());
+        expenses.refresh();
         updateChart();
         updateTotal();
     }
 
-    private void exportCSV() {
-        try (FileWriter writer = new FileWriter("expenses_export.csv")) {
-            writer.write("ID,Description,Category,Amount\n");
-            for (Expense e : expenses) {
-                writer.write(e.getId() + "," + e.getDescription() + "," +
-                        e.getCategory() + "," + e.getAmount() + "\n");
-            }
-            new Alert(Alert.AlertType.INFORMATION, "Exported to expenses_export.csv!").show();
-        } catch (IOException e) {
-            new Alert(Alert.AlertType.ERROR, "Export failed!").show();
+    // === Change events (FX thread) ===
+
+    private void applyInsert(Expense e) {
+        if (currentQuery.isBlank()) {
+            expenses.rowAppended(e);
+            adjustTotal(e.getAmount());
+        } else {
+            // Whether it matches the search is up to the full-text index.
+            expenses.refresh();
+            updateTotal();
         }
+        adjustSlice(e.getCategory(), e.getAmount());
     }
 
-    private void filterExpenses(String query) {
-        if (query == null || query.isEmpty()) {
-            expenses.setAll(dao.getAllExpenses());
+    private void applyUpdate(Expense before, Expense after) {
+        if (currentQuery.isBlank()) {
+            expenses.rowUpdated(after);
+            adjustTotal(after.getAmount() - before.getAmount());
+        } else {
+            expenses.refresh();
+            updateTotal();
+        }
+        adjustSlice(before.getCategory(), -before.getAmount());
+        adjustSlice(after.getCategory(), after.getAmount());
+    }
+
+    private void applyDelete(Expense e) {
+        expenses.rowRemoved(e.getId());
+        if (currentQuery.isBlank()) adjustTotal(-e.getAmount());
+        else updateTotal();
+        adjustSlice(e.getCategory(), -e.getAmount());
+    }
+
+    private void adjustTotal(double delta) {
+        if (totalLoading) {
+            updateTotal();
+            return;
+        }
+        shownTotal += delta;
+        showTotal();
+    }
+
+    private void adjustSlice(String category, double delta) {
+        if (chartLoading) {
+            updateChart();
+            return;
+        }
+        String key = category == null ? "" : category;
+        PieChart.Data slice = slices.get(key);
+        if (slice == null) {
+            if (delta <= 0) return;
+            slice = new PieChart.Data(key, delta);
+            slices.put(key, slice);
+            pieChart.getData().add(slice);
+        } else if (slice.getPieValue() + delta < 0.005) {
+            slices.remove(key);
+            pieChart.getData().remove(slice);
         } else {
-            expenses.setAll(dao.getAllExpenses().stream()
-                    .filter(e -> e.getDescription().toLowerCase().contains(query.toLowerCase()))
-                    .toList());
+            slice.setPieValue(slice.getPieValue() + delta);
         }
+    }
+
+    private void importCSV(Stage stage) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Expenses");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+        File file = chooser.showOpenDialog(stage);
+        if (file == null) return;
+
+        service.importCsv(file.toPath()).whenCompleteAsync((result, error) -> {
+            if (error != null) {
+                new Alert(Alert.AlertType.ERROR, "Import failed: " + rootCause(error).getMessage()).show();
+                return;
+            }
+            // The DAO's reload event refreshes the table, chart and total.
+            Alert.AlertType type = result.getFailures().isEmpty() ? Alert.AlertType.INFORMATION : Alert.AlertType.WARNING;
+            StringBuilder msg = new StringBuilder(result.toString());
+            result.getFailures().stream().limit(10).forEach(f -> msg.append("\n").append(f));
+            new Alert(type, msg.toString()).show();
+            // One summary for the whole import instead of an alert per row
+            service.checkBudgets().thenAcceptAsync(this::showBudgetSummary, ExpenseService.FX);
+        }, ExpenseService.FX);
+    }
+
+    private static Throwable rootCause(Throwable t) {
+        while (t.getCause() != null) t = t.getCause();
+        return t;
+    }
+
+    private void exportCSV(Stage stage) {
+        // === Filters ===
+        ComboBox<String> periodBox = new ComboBox<>();
+        periodBox.getItems().addAll("All time", "This month", "This week");
+        periodBox.getSelectionModel().selectFirst();
+
+        ComboBox<String> categoryBox = new ComboBox<>();
+        categoryBox.getItems().add("All categories");
+        categoryBox.getItems().addAll(CATEGORIES);
+        categoryBox.getSelectionModel().selectFirst();
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.addRow(0, new Label("Period:"), periodBox);
+        grid.addRow(1, new Label("Category:"), categoryBox);
+        grid.setPadding(new Insets(10));
+
+        Dialog<ButtonType> filterDialog = new Dialog<>();
+        filterDialog.setTitle("Export CSV");
+        filterDialog.getDialogPane().setContent(grid);
+        filterDialog.getDialogPane().getButtonTypes().addAll(ButtonType.NEXT, ButtonType.CANCEL);
+        if (filterDialog.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.NEXT) return;
+
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export Expenses");
+        chooser.setInitialFileName("expenses_export.csv");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV files", "*.csv"),
+                new FileChooser.ExtensionFilter("Gzipped CSV files", "*.csv.gz"));
+        File file = chooser.showSaveDialog(stage);
+        if (file == null) return;
+
+        CsvExporter exporter = new CsvExporter(dao)
+                .range(switch (periodBox.getValue()) {
+                    case "This month" -> DateRange.currentMonth();
+                    case "This week" -> DateRange.currentWeek();
+                    default -> null;
+                })
+                .category(categoryBox.getSelectionModel().getSelectedIndex() == 0 ? null : categoryBox.getValue());
+
+        // === Progress ===
+        ProgressBar bar = new ProgressBar(ProgressBar.INDETERMINATE_PROGRESS);
+        bar.setPrefWidth(300);
+        Label status = new Label("Exporting...");
+        Dialog<Void> progressDialog = new Dialog<>();
+        progressDialog.setTitle("Exporting");
+        progressDialog.getDialogPane().setContent(new VBox(10, status, bar));
+        progressDialog.getDialogPane().getButtonTypes().add(ButtonType.CANCEL);
+        progressDialog.setOnCloseRequest(e -> exporter.cancel());
+        progressDialog.show();
+
+        service.submit("export.csv", () -> exporter.export(file.toPath(), (done, total) ->
+                Platform.runLater(() -> {
+                    bar.setProgress(total > 0 ? (double) done / total : ProgressBar.INDETERMINATE_PROGRESS);
+                    status.setText("Exported " + done + (total > 0 ? " of " + total : "") + " rows");
+                })
+        )).whenCompleteAsync((rows, error) -> {
+            progressDialog.setOnCloseRequest(null);
+            progressDialog.close();
+            if (error == null) {
+                new Alert(Alert.AlertType.INFORMATION, "Exported " + rows + " rows to " + file.getName() + "!").show();
+            } else if (!(rootCause(error) instanceof CancellationException)) {
+                new Alert(Alert.AlertType.ERROR, "Export failed: " + rootCause(error).getMessage()).show();
+            }
+        }, ExpenseService.FX);
+    }
+
+    private void filterExpenses(String query) {
+        currentQuery = query == null ? "" : query;
+        expenses.setSource(pageSource(currentQuery));
         updateChart();
         updateTotal();
     }
 
     private void updateChart() {
+        long start = System.nanoTime();
+        chartLoading = true;
+        service.getCategoryTotals().thenAcceptAsync(totals -> {
+            chartLoading = false;
+            showChart(totals);
+            Metrics.timer("ui.updateChart").record(System.nanoTime() - start);
+        }, ExpenseService.FX);
+    }
+
+    private void showChart(Map<String, Double> totals) {
         pieChart.getData().clear();
-        dao.getCategoryTotals().forEach((cat, total) ->
-                pieChart.getData().add(new PieChart.Data(cat, total))
-        );
+        slices.clear();
+        totals.forEach((cat, total) -> {
+            PieChart.Data slice = new PieChart.Data(cat, total);
+            slices.put(cat, slice);
+            pieChart.getData().add(slice);
+        });
+    }
+
+    private PagedExpenseList.PageSource pageSource(String query) {
+        return new PagedExpenseList.PageSource() {
+            @Override
+            public int count() { return dao.countExpenses(query); }
+
+            @Override
+            public List<Expense> page(int afterId, int limit) { return dao.getExpensesAfter(query, afterId, limit); }
+
+            @Override
+            public int idAtOffset(int offset) { return dao.getIdAtOffset(query, offset); }
+        };
     }
 
     private void updateTotal() {
-        double sum = expenses.stream().mapToDouble(Expense::getAmount).sum();
-        totalLabel.setText("Total: ₹" + String.format("%.2f", sum));
+        long start = System.nanoTime();
+        totalLoading = true;
+        service.getTotalAmount(currentQuery).thenAcceptAsync(sum -> {
+            totalLoading = false;
+            shownTotal = sum;
+            showTotal();
+            Metrics.timer("ui.updateTotal").record(System.nanoTime() - start);
+        }, ExpenseService.FX);
+    }
+
+    private void showTotal() {
+        totalLabel.setText("Total: ₹" + String.format("%.2f", shownTotal));
     }
 
     private void showBudgetDialog() {
+        service.getAllBudgets().thenAcceptAsync(this::showBudgetDialog, ExpenseService.FX);
+    }
+
+    private void showBudgetDialog(Map<String, Double> budgets) {
         Dialog<Void> dialog = new Dialog<>();
         dialog.setTitle("Set Category Budgets");
 
@@ -216,9 +537,7 @@ public class MainApp extends Application {
         infoLabel.setStyle("-fx-font-weight: bold;");
         content.getChildren().add(infoLabel);
 
-        String[] categories = {"Food", "Transport", "Utilities", "Entertainment", "Health", "Shopping", "Education", "Other"};
-
-        for (String cat : categories) {
+        for (String cat : CATEGORIES) {
             HBox row = new HBox(10);
             row.setAlignment(Pos.CENTER_LEFT);
 
@@ -227,7 +546,7 @@ public class MainApp extends Application {
 
             TextField budgetField = new TextField();
             budgetField.setPromptText("Enter budget");
-            double currentBudget = budgetManager.getBudget(cat);
+            double currentBudget = budgets.getOrDefault(cat, 0.0);
             if (currentBudget > 0) {
                 budgetField.setText(String.valueOf(currentBudget));
             }
@@ -236,8 +555,8 @@ public class MainApp extends Application {
             saveBtn.setOnAction(e -> {
                 try {
                     double budget = Double.parseDouble(budgetField.getText());
-                    budgetManager.setBudget(cat, budget);
-                    new Alert(Alert.AlertType.INFORMATION, cat + " budget set to ₹" + budget).show();
+                    service.setBudget(cat, budget).thenRunAsync(() ->
+                            new Alert(Alert.AlertType.INFORMATION, cat + " budget set to ₹" + budget).show(), ExpenseService.FX);
                 } catch (NumberFormatException ex) {
                     new Alert(Alert.AlertType.ERROR, "Invalid amount!").show();
                 }
@@ -252,24 +571,207 @@ public class MainApp extends Application {
         dialog.show();
     }
 
-    private void checkBudgetAlert(String category) {
-        double budget = budgetManager.getBudget(category);
-        if (budget <= 0) return;
-
-        double spent = dao.getCategoryTotals().getOrDefault(category, 0.0);
-        double percentage = (spent / budget) * 100;
+    private void showBudgetAlert(BudgetAlert alert) {
+        String category = alert.category();
+        double budget = alert.limit();
+        double spent = alert.spent();
+        double percentage = alert.percentage();
+        String period = alert.rule().period() == BudgetPeriod.MONTHLY ? ""
+                : " (" + alert.rule().period().name().toLowerCase().replace('_', ' ') + ")";
 
-        if (percentage >= 100) {
+        if (alert.isExceeded()) {
             new Alert(Alert.AlertType.WARNING,
                     "⚠️ Budget Exceeded!\n" +
-                            category + " budget: ₹" + budget + "\n" +
+                            category + " budget" + period + ": ₹" + String.format("%.2f", budget) + "\n" +
                             "Spent: ₹" + String.format("%.2f", spent) + " (" + String.format("%.0f", percentage) + "%)").show();
-        } else if (percentage >= 80) {
+        } else {
             new Alert(Alert.AlertType.WARNING,
                     "⚠️ Budget Alert!\n" +
-                            category + " is at " + String.format("%.0f", percentage) + "% of budget\n" +
-                            "Budget: ₹" + budget + " | Spent: ₹" + String.format("%.2f", spent)).show();
+                            category + " is at " + String.format("%.0f", percentage) + "% of budget" + period + "\n" +
+                            "Budget: ₹" + String.format("%.2f", budget) + " | Spent: ₹" + String.format("%.2f", spent)).show();
+        }
+    }
+
+    private void showBudgetSummary(List<BudgetAlert> alerts) {
+        if (alerts.isEmpty()) return;
+        StringBuilder msg = new StringBuilder("⚠️ Budget Alerts\n");
+        for (BudgetAlert a : alerts) {
+            msg.append("\n").append(a.category()).append(": ").append(String.format("%.0f", a.percentage()))
+                    .append("% of ₹").append(String.format("%.2f", a.limit()))
+                    .append(" (").append(a.rule().period().name().toLowerCase().replace('_', ' ')).append(")");
+        }
+        new Alert(Alert.AlertType.WARNING, msg.toString()).show();
+    }
+
+    private record TrendData(List<Trends.Line> lines, Trends.Bars bars) {
+    }
+
+    /**
+     * Daily spend lines and monthly stacked bars per category, read from the rollup
+     * tables and downsampled, for a chosen span.
+     */
+    private void showTrends() {
+        Stage window = new Stage();
+        window.setTitle("Spending Trends");
+
+        NumberAxis dayAxis = new NumberAxis();
+        dayAxis.setForceZeroInRange(false);
+        dayAxis.setTickLabelFormatter(new javafx.util.StringConverter<>() {
+            @Override
+            public String toString(Number day) { return LocalDate.ofEpochDay(day.longValue()).toString(); }
+
+            @Override
+            public Number fromString(String s) { return LocalDate.parse(s).toEpochDay(); }
+        });
+        LineChart<Number, Number> lineChart = new LineChart<>(dayAxis, new NumberAxis());
+        lineChart.setTitle("Daily Spending");
+        lineChart.setCreateSymbols(false);
+        lineChart.setAnimated(false);
+        StackedBarChart<String, Number> barChart = new StackedBarChart<>(new CategoryAxis(), new NumberAxis());
+        barChart.setTitle("Spending by Period");
+        barChart.setAnimated(false);
+
+        ChoiceBox<String> span = new ChoiceBox<>();
+        span.getItems().addAll("Last 90 days", "Last 12 months", "Last 5 years", "All time");
+        span.setValue("Last 12 months");
+        Label timing = new Label();
+
+        Runnable load = () -> {
+            LocalDate today = LocalDate.now();
+            YearMonth thisMonth = YearMonth.from(today);
+            boolean recentDays = span.getValue().equals("Last 90 days");
+            YearMonth first = switch (span.getValue()) {
+                case "Last 90 days" -> YearMonth.from(today.minusDays(89));
+                case "Last 12 months" -> thisMonth.minusMonths(11);
+                case "Last 5 years" -> thisMonth.minusYears(5).plusMonths(1);
+                default -> null;
+            };
+            service.submitLatest("trends", "ui.trends.load", () -> {
+                YearMonth from = first;
+                YearMonth to = thisMonth;
+                if (from == null) {
+                    YearMonth[] all = dao.getMonthSpan();
+                    from = all == null ? thisMonth : all[0];
+                    to = all == null || all[1].isBefore(thisMonth) ? thisMonth : all[1];
+                }
+                LocalDate start = recentDays ? today.minusDays(89) : from.atDay(1);
+                DateRange range = new DateRange(start, to.plusMonths(1).atDay(1));
+                return new TrendData(Trends.daily(dao, range, 250), Trends.monthly(dao, from, to, 36));
+            }).thenAcceptAsync(data -> {
+                long start = System.nanoTime();
+                lineChart.getData().clear();
+                for (Trends.Line line : data.lines()) {
+                    XYChart.Series<Number, Number> series = new XYChart.Series<>();
+                    series.setName(line.category().isEmpty() ? "(none)" : line.category());
+                    for (int i = 0; i < line.x().length; i++) {
+                        series.getData().add(new XYChart.Data<>(line.x()[i], line.y()[i]));
+                    }
+                    lineChart.getData().add(series);
+                }
+                barChart.getData().clear();
+                data.bars().byCategory().forEach((cat, values) -> {
+                    XYChart.Series<String, Number> series = new XYChart.Series<>();
+                    series.setName(cat.isEmpty() ? "(none)" : cat);
+                    for (int i = 0; i < values.length; i++) {
+                        series.getData().add(new XYChart.Data<>(data.bars().labels().get(i), values[i]));
+                    }
+                    barChart.getData().add(series);
+                });
+                long nanos = System.nanoTime() - start;
+                Metrics.timer("ui.trends.render").record(nanos);
+                timing.setText(String.format("Rendered in %.1f ms", nanos / 1e6));
+            }, ExpenseService.FX);
+        };
+        span.setOnAction(e -> load.run());
+        load.run();
+
+        HBox controls = new HBox(10, new Label("Show:"), span, timing);
+        controls.setAlignment(Pos.CENTER_LEFT);
+        VBox root = new VBox(10, controls, lineChart, barChart);
+        root.setPadding(new Insets(10));
+        VBox.setVgrow(lineChart, Priority.ALWAYS);
+        VBox.setVgrow(barChart, Priority.ALWAYS);
+        window.setScene(new Scene(root, 900, 700));
+        window.show();
+    }
+
+    private void showDiagnostics() {
+        Stage window = new Stage();
+        window.setTitle("Diagnostics");
+
+        TableView<String[]> timerTable = new TableView<>();
+        timerTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        String[] headers = {"Operation", "Count", "Mean (ms)", "p50 (ms)", "p99 (ms)", "Max (ms)"};
+        for (int i = 0; i < headers.length; i++) {
+            int col = i;
+            TableColumn<String[], String> column = new TableColumn<>(headers[i]);
+            column.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue()[col]));
+            timerTable.getColumns().add(column);
+        }
+        Label counters = new Label();
+
+        Runnable update = () -> {
+            List<String[]> rows = new ArrayList<>();
+            Metrics.timers().forEach((name, t) -> rows.add(new String[]{
+                    name, String.valueOf(t.getCount()),
+                    String.format("%.2f", t.getMeanMillis()), String.format("%.2f", t.getP50Millis()),
+                    String.format("%.2f", t.getP99Millis()), String.format("%.2f", t.getMaxMillis())}));
+            timerTable.getItems().setAll(rows);
+            StringBuilder sb = new StringBuilder();
+            Metrics.counters().forEach((name, c) -> sb.append(name).append(": ").append(c.getCount()).append("    "));
+            counters.setText(sb.toString());
+        };
+        update.run();
+
+        // Live while the window is open
+        Timeline ticker = new Timeline(
+                new KeyFrame(Duration.seconds(1), e -> update.run()));
+        ticker.setCycleCount(Animation.INDEFINITE);
+        ticker.play();
+        window.setOnHidden(e -> ticker.stop());
+
+        VBox root = new VBox(10, timerTable, counters);
+        root.setPadding(new Insets(10));
+        VBox.setVgrow(timerTable, Priority.ALWAYS);
+        window.setScene(new Scene(root, 760, 480));
+        window.show();
+    }
+
+    /**
+     * Serves the JSON API alongside the window when {@code tracker.api.port} is set.
+     */
+    private void startApi() {
+        Integer port = Integer.getInteger("tracker.api.port");
+        if (port == null) return;
+        try {
+            api = new ApiServer(dao, budgetManager, service.getBudgetEngine(), port);
+            api.start();
+        } catch (IOException e) {
+            Metrics.error("api.start", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (startup == null) { // start() failed before opening the database
+            DBHelper.shutdown();
+            return;
+        }
+        try {
+            startup.join(); // closed while still opening: let it finish first
+        } catch (CompletionException e) {
+            DBHelper.shutdown();
+            return;
+        }
+        if (api != null) api.close();
+        service.close();
+        dao.getCategorizer().flush();
+        try {
+            StartupSnapshot.write(dao, budgetManager, new CategorizerStore(), DBHelper.pool());
+        } catch (IOException e) {
+            Metrics.error("snapshot.write", e);
         }
+        DBHelper.shutdown();
     }
 
     public static void main(String[] args) {
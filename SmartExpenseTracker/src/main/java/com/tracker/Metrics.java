@@ -0,0 +1,296 @@
+package com.tracker;
+
+import javax.management.*;
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Metrics:
+ * Process-wide registry of named latency timers and counters.
+ *
+ * A timer keeps count, total and max plus a log-linear histogram (8 buckets per
+ * power of two, so percentiles are within 12.5%) for p50/p99. Recording is a few
+ * uncontended atomic adds, cheap enough for per-row and per-suggestion hot paths.
+ *
+ * {@link #registerJmx()} publishes every timer and counter as an MXBean under
+ * {@code com.tracker:type=Timer|Counter,name=...}; {@link #startDump} periodically
+ * appends a snapshot to a CSV file and/or logs {@link #report()} at INFO. All of
+ * it can be switched on with the {@code tracker.metrics.jmx}, {@code tracker.metrics.csv},
+ * {@code tracker.metrics.log} and {@code tracker.metrics.interval} (seconds) system
+ * properties via {@link #configureFromSystemProperties()}.
+ */
+public final class Metrics {
+
+    public interface TimerMXBean {
+        long getCount();
+        double getMeanMillis();
+        double getP50Millis();
+        double getP99Millis();
+        double getMaxMillis();
+    }
+
+    public interface CounterMXBean {
+        long getCount();
+    }
+
+    public static final class Timer implements TimerMXBean {
+        private static final int SUB_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+
+        public void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            count.increment();
+            totalNanos.add(nanos);
+            buckets.incrementAndGet(bucket(nanos));
+            if (nanos > maxNanos.get()) maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        /**
+         * Starts a sample that records the elapsed time when closed, for use as a
+         * try-with-resources resource.
+         */
+        public Sample start() {
+            return new Sample(this, System.nanoTime());
+        }
+
+        public long getCount() { return count.sum(); }
+        public long getTotalNanos() { return totalNanos.sum(); }
+        public long getMaxNanos() { return maxNanos.get(); }
+
+        public double getMeanMillis() {
+            long n = getCount();
+            return n == 0 ? 0 : getTotalNanos() / (double) n / 1_000_000.0;
+        }
+
+        public double getMaxMillis() { return getMaxNanos() / 1_000_000.0; }
+        public double getP50Millis() { return percentileNanos(0.50) / 1_000_000.0; }
+        public double getP99Millis() { return percentileNanos(0.99) / 1_000_000.0; }
+
+        /**
+         * Upper bound of the histogram bucket holding the {@code q} quantile (capped
+         * at the max seen), or 0 when nothing was recorded.
+         */
+        public long percentileNanos(double q) {
+            long[] snapshot = new long[buckets.length()];
+            long total = 0;
+            for (int i = 0; i < snapshot.length; i++) {
+                snapshot[i] = buckets.get(i);
+                total += snapshot[i];
+            }
+            if (total == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * total));
+            long seen = 0;
+            for (int i = 0; i < snapshot.length; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) return Math.min(upperBound(i), getMaxNanos());
+            }
+            return getMaxNanos();
+        }
+
+        static int bucket(long v) {
+            if (v < SUB_BUCKETS) return (int) v;
+            int exp = 63 - Long.numberOfLeadingZeros(v);
+            int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return ((exp - SUB_BITS + 1) << SUB_BITS) + sub;
+        }
+
+        static long upperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) return bucket;
+            int exp = (bucket >>> SUB_BITS) + SUB_BITS - 1;
+            long width = 1L << (exp - SUB_BITS);
+            return ((SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) * width) + width - 1;
+        }
+    }
+
+    /**
+     * Times a try-with-resources block. The variable is never read in the block, which
+     * javac's "try" lint flags, so classes using it suppress that warning.
+     */
+    public static final class Sample implements AutoCloseable {
+        private final Timer timer;
+        private final long start;
+
+        private Sample(Timer timer, long start) {
+            this.timer = timer;
+            this.start = start;
+        }
+
+        @Override
+        public void close() {
+            timer.record(System.nanoTime() - start);
+        }
+    }
+
+    public static final class Counter implements CounterMXBean {
+        private final LongAdder count = new LongAdder();
+
+        public void increment() { count.increment(); }
+        public void add(long n) { count.add(n); }
+        public long getCount() { return count.sum(); }
+    }
+
+    private static final Logger LOG = Logger.getLogger(Metrics.class.getName());
+    private static final Map<String, Timer> TIMERS = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static volatile boolean jmx;
+    private static ScheduledExecutorService dumper;
+
+    /** Rows materialized from result sets. */
+    public static final Counter ROWS_READ = counter("db.rowsRead");
+    /** SQLExceptions caught anywhere in the app. */
+    public static final Counter SQL_ERRORS = counter("db.sqlErrors");
+
+    private Metrics() {
+    }
+
+    public static Timer timer(String name) {
+        Timer t = TIMERS.get(name);
+        if (t != null) return t;
+        return TIMERS.computeIfAbsent(name, k -> register("Timer", k, new Timer()));
+    }
+
+    /** Shorthand for {@code timer(name).start()}. */
+    public static Sample time(String name) {
+        return timer(name).start();
+    }
+
+    public static Counter counter(String name) {
+        Counter c = COUNTERS.get(name);
+        if (c != null) return c;
+        return COUNTERS.computeIfAbsent(name, k -> register("Counter", k, new Counter()));
+    }
+
+    /**
+     * Counts a caught SQLException in {@link #SQL_ERRORS} and logs it.
+     */
+    public static void sqlError(SQLException e) {
+        SQL_ERRORS.increment();
+        LOG.log(Level.WARNING, "SQL error: " + e.getMessage(), e);
+    }
+
+    /**
+     * Counts a failure of {@code operation} in the {@code <operation>.errors} counter
+     * and logs it. {@code operation} must be a fixed name, not caller input.
+     */
+    public static void error(String operation, Throwable e) {
+        counter(operation + ".errors").increment();
+        LOG.log(Level.WARNING, operation + " failed: " + e, e);
+    }
+
+    /**
+     * Snapshot of all timers, sorted by name.
+     */
+    public static Map<String, Timer> timers() {
+        return new TreeMap<>(TIMERS);
+    }
+
+    public static Map<String, Counter> counters() {
+        return new TreeMap<>(COUNTERS);
+    }
+
+    public static String report() {
+        StringBuilder sb = new StringBuilder("=== Operation Latency ===\n");
+        timers().forEach((name, t) -> sb.append(String.format("%-32s n=%-8d mean=%8.2fms p50=%8.2fms p99=%8.2fms max=%8.2fms%n",
+                name, t.getCount(), t.getMeanMillis(), t.getP50Millis(), t.getP99Millis(), t.getMaxMillis())));
+        sb.append("=== Counters ===\n");
+        counters().forEach((name, c) -> sb.append(String.format("%-32s %d%n", name, c.getCount())));
+        return sb.toString();
+    }
+
+    // === Export ===
+
+    /**
+     * Registers all current and future timers and counters with the platform
+     * MBean server.
+     */
+    public static synchronized void registerJmx() {
+        if (jmx) return;
+        jmx = true;
+        TIMERS.forEach((name, t) -> register("Timer", name, t));
+        COUNTERS.forEach((name, c) -> register("Counter", name, c));
+    }
+
+    /**
+     * Every {@code periodSeconds}, appends a snapshot of every metric to {@code csv}
+     * (header written once for a new file; null for none) and, if {@code log} is set,
+     * logs {@link #report()} at INFO. Runs on a daemon thread until {@link #stopDump()}.
+     */
+    public static synchronized void startDump(Path csv, boolean log, long periodSeconds) {
+        stopDump();
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleAtFixedRate(() -> {
+            if (log) LOG.info(report());
+            if (csv == null) return;
+            try {
+                appendCsv(csv);
+            } catch (IOException e) {
+                error("metrics.dump", e);
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    public static synchronized void stopDump() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+    }
+
+    public static void configureFromSystemProperties() {
+        if (Boolean.getBoolean("tracker.metrics.jmx")) registerJmx();
+        String csv = System.getProperty("tracker.metrics.csv");
+        boolean log = Boolean.getBoolean("tracker.metrics.log");
+        long interval = Long.getLong("tracker.metrics.interval", 0);
+        boolean toCsv = csv != null && !csv.isBlank();
+        if (toCsv || log) {
+            startDump(toCsv ? Path.of(csv) : null, log, interval > 0 ? interval : 60);
+        }
+    }
+
+    static void appendCsv(Path csv) throws IOException {
+        boolean header = !Files.exists(csv) || Files.size(csv) == 0;
+        String now = Instant.now().toString();
+        try (Writer w = Files.newBufferedWriter(csv, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (header) w.write("timestamp,type,name,count,mean_ms,p50_ms,p99_ms,max_ms\n");
+            for (var e : timers().entrySet()) {
+                Timer t = e.getValue();
+                w.write(String.format(Locale.ROOT, "%s,timer,%s,%d,%.3f,%.3f,%.3f,%.3f%n", now, e.getKey(),
+                        t.getCount(), t.getMeanMillis(), t.getP50Millis(), t.getP99Millis(), t.getMaxMillis()));
+            }
+            for (var e : counters().entrySet()) {
+                w.write(String.format(Locale.ROOT, "%s,counter,%s,%d,,,,%n", now, e.getKey(), e.getValue().getCount()));
+            }
+        }
+    }
+
+    private static <T> T register(String type, String name, T bean) {
+        if (!jmx) return bean;
+        try {
+            ObjectName on = new ObjectName("com.tracker:type=" + type + ",name=" + ObjectName.quote(name));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(on)) server.registerMBean(bean, on);
+        } catch (JMException e) {
+            LOG.log(Level.WARNING, "Cannot register " + name + " with JMX", e);
+        }
+        return bean;
+    }
+}
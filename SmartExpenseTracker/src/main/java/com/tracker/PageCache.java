@@ -0,0 +1,184 @@
+package com.tracker;
+
+import java.util.*;
+
+/**
+ * PageCache:
+ * The toolkit-free part of {@link PagedExpenseList}: a small LRU cache of keyset
+ * pages, the cursor (id of the last row before it) of each page whose start is
+ * known, the pages being loaded, and the index math of single-row patches.
+ *
+ * Every change bumps a generation number; a load started under an older one is
+ * dropped when it tries to store its page. Only {@link #clear()} starts a new epoch:
+ * a row count taken in the current epoch stays valid across single-row patches.
+ * All methods are thread-safe.
+ */
+final class PageCache {
+    static final int PAGE_SIZE = PagedExpenseList.PAGE_SIZE;
+    static final int MAX_CACHED_PAGES = 16;
+
+    /** Outcome of {@link #fetch}. */
+    enum Fetch {
+        STORED,
+        STALE, // the cache changed while loading; nothing was stored
+        GONE   // the page starts past the source's last row
+    }
+
+    /** Where a patched row sits and the row it replaced or removed. */
+    record Patch(int index, Expense old) {
+    }
+
+    private final Map<Integer, List<Expense>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Expense>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    // page index -> id of the last row before that page (the keyset cursor)
+    private final Map<Integer, Integer> pageKeys = new HashMap<>();
+    // page -> generation it is being loaded under
+    private final Map<Integer, Integer> inFlight = new HashMap<>();
+    private volatile int generation;
+    private volatile int epoch;
+
+    PageCache() {
+        pageKeys.put(0, 0);
+    }
+
+    /** Caches a first page known up front, e.g. from a {@link StartupSnapshot}. */
+    synchronized void seed(List<Expense> firstPage) {
+        pages.put(0, firstPage);
+        if (firstPage.size() == PAGE_SIZE) pageKeys.put(1, firstPage.get(PAGE_SIZE - 1).getId());
+    }
+
+    int generation() {
+        return generation;
+    }
+
+    int epoch() {
+        return epoch;
+    }
+
+    /** Drops every page and cursor and starts a new epoch, which it returns. */
+    synchronized int clear() {
+        pages.clear();
+        pageKeys.clear();
+        pageKeys.put(0, 0);
+        inFlight.clear();
+        generation++;
+        return ++epoch;
+    }
+
+    /** The cached rows of {@code page}, or null. Counts as a use for the LRU order. */
+    synchronized List<Expense> get(int page) {
+        return pages.get(page);
+    }
+
+    synchronized boolean contains(int page) {
+        return pages.containsKey(page);
+    }
+
+    /**
+     * Marks {@code page} as loading and returns the generation to load it under, or
+     * -1 if it is already loading.
+     */
+    synchronized int startLoad(int page) {
+        return inFlight.putIfAbsent(page, generation) == null ? generation : -1;
+    }
+
+    /**
+     * Ends the load of {@code page} started under {@code gen}. A stale load finishing
+     * after a newer one of the same page started leaves the newer one's marker.
+     */
+    synchronized void loadFinished(int page, int gen) {
+        inFlight.remove(page, gen);
+    }
+
+    /**
+     * Reads {@code page} from {@code src} and caches it unless the generation moved
+     * on meanwhile. A page without a known cursor finds it by offset; if there is no
+     * row at that offset the source has fewer rows than the caller thinks.
+     */
+    Fetch fetch(int page, PagedExpenseList.PageSource src, int gen) {
+        Integer afterId;
+        synchronized (this) {
+            afterId = pageKeys.get(page);
+        }
+        if (afterId == null) {
+            afterId = src.idAtOffset(page * PAGE_SIZE - 1);
+            if (afterId < 0) return Fetch.GONE;
+        }
+        List<Expense> rows = src.page(afterId, PAGE_SIZE);
+        synchronized (this) {
+            if (gen != generation) return Fetch.STALE;
+            pages.put(page, rows);
+            if (rows.size() == PAGE_SIZE) pageKeys.put(page + 1, rows.get(rows.size() - 1).getId());
+        }
+        return Fetch.STORED;
+    }
+
+    /** Adds {@code e} as row {@code index}, the current last index plus one. */
+    synchronized void append(int index, Expense e) {
+        invalidateLoads();
+        int page = index / PAGE_SIZE;
+        List<Expense> rows = pages.get(page);
+        if (rows == null) return;
+        if (rows.size() == index % PAGE_SIZE) {
+            List<Expense> patched = new ArrayList<>(rows);
+            patched.add(e);
+            pages.put(page, patched);
+            if (patched.size() == PAGE_SIZE) pageKeys.put(page + 1, e.getId());
+        } else {
+            pages.remove(page);
+        }
+    }
+
+    /** Replaces the cached row with {@code e}'s id; null when it is not cached. */
+    synchronized Patch update(Expense e) {
+        int index = indexOf(e.getId());
+        if (index < 0) return null; // not loaded: it will be read fresh
+        invalidateLoads();
+        int page = index / PAGE_SIZE;
+        List<Expense> patched = new ArrayList<>(pages.get(page));
+        Expense old = patched.set(index % PAGE_SIZE, e);
+        pages.put(page, patched);
+        return new Patch(index, old);
+    }
+
+    /**
+     * Removes the cached row with {@code id}; null when it is not cached. Pages from
+     * that row on are dropped and reload as needed.
+     */
+    synchronized Patch remove(int id) {
+        int index = indexOf(id);
+        if (index < 0) return null;
+        invalidateLoads();
+        int page = index / PAGE_SIZE;
+        Expense old = pages.get(page).get(index % PAGE_SIZE);
+        // Rows before the page are unchanged, so its cursor stays valid. Each later
+        // page now starts one row earlier, i.e. right after its old first row.
+        Map<Integer, List<Expense>> later = new HashMap<>();
+        pages.forEach((k, rows) -> { if (k > page) later.put(k, rows); });
+        pages.keySet().removeIf(k -> k >= page);
+        pageKeys.keySet().removeIf(k -> k > page);
+        later.forEach((k, rows) -> { if (!rows.isEmpty()) pageKeys.put(k, rows.get(0).getId()); });
+        return new Patch(index, old);
+    }
+
+    // Caller holds the monitor. Loads started before a change may have missed it.
+    private void invalidateLoads() {
+        generation++;
+        inFlight.clear();
+    }
+
+    // Caller holds the monitor.
+    private int indexOf(int id) {
+        for (Map.Entry<Integer, List<Expense>> entry : pages.entrySet()) {
+            List<Expense> rows = entry.getValue();
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.get(i).getId() == id) return entry.getKey() * PAGE_SIZE + i;
+            }
+        }
+        return -1;
+    }
+}
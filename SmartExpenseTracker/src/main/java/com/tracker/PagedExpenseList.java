@@ -0,0 +1,224 @@
+package com.tracker;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * PagedExpenseList:
+ * Virtualized list for the expense TableView. Only the rows the table asks for are
+ * loaded, one keyset page at a time ({@code id > lastId LIMIT n}), into a small LRU
+ * page cache; the page after the one being read is prefetched.
+ * Memory use is bounded by the cache size, not by the number of rows in the table.
+ *
+ * All loading happens on the supplied background executor. A row whose page is not
+ * cached yet reads as null (an empty table row) and is filled in on the JavaFX thread
+ * once the page arrives. Results from an older source or refresh are dropped.
+ *
+ * Single-row changes ({@link #rowAppended}, {@link #rowUpdated}, {@link #rowRemoved})
+ * patch the cached pages and fire a one-row change instead of reloading, so their
+ * cost does not depend on the number of rows.
+ *
+ * A failed count or page load is counted in {@link Metrics} and passed to the
+ * {@link #setOnLoadError} handler on the JavaFX thread; the rows stay empty and are
+ * requested again the next time the table reads them.
+ *
+ * The cache, cursors and patch index math live in {@link PageCache}; this class adds
+ * the threading and the change events.
+ */
+public class PagedExpenseList extends ObservableListBase<Expense> {
+    public static final int PAGE_SIZE = 200;
+
+    /**
+     * Where pages come from; the query is fixed by the source.
+     */
+    public interface PageSource {
+        int count();
+        List<Expense> page(int afterId, int limit);
+        int idAtOffset(int offset);
+    }
+
+    private final PageCache cache = new PageCache();
+    private final Executor loader;
+
+    private volatile PageSource source;
+    private Consumer<Throwable> onLoadError;
+    private int size;
+    private boolean counting; // a refresh's count has not arrived yet
+
+    public PagedExpenseList(PageSource source, Executor loader) {
+        this.source = source;
+        this.loader = loader;
+        refresh();
+    }
+
+    /**
+     * Starts from a known row count and first page (e.g. from a {@link StartupSnapshot})
+     * instead of counting; later pages load on demand as usual. The first page is
+     * shown at once and re-read in the background, since a row in it may have been
+     * edited since it was captured. Call on the JavaFX thread.
+     */
+    public PagedExpenseList(PageSource source, Executor loader, int size, List<Expense> firstPage) {
+        this.source = source;
+        this.loader = loader;
+        this.size = size;
+        cache.seed(firstPage);
+        load(0);
+    }
+
+    @Override
+    public Expense get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+        int page = index / PAGE_SIZE;
+        List<Expense> rows = cache.get(page);
+        if (rows == null) {
+            request(page);
+            return null;
+        }
+        request(page + 1);
+        int offset = index % PAGE_SIZE;
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Called on the JavaFX thread when counting or loading a page fails.
+     */
+    public void setOnLoadError(Consumer<Throwable> handler) {
+        this.onLoadError = handler;
+    }
+
+    /**
+     * Switches to a different source (e.g. a new search query) and reloads.
+     */
+    public void setSource(PageSource source) {
+        this.source = source;
+        refresh();
+    }
+
+    /**
+     * Drops every cached page and re-counts in the background; the table is told that
+     * all rows changed once the new count arrives.
+     */
+    public void refresh() {
+        int epoch = cache.clear();
+        counting = true;
+        PageSource src = source;
+        long start = System.nanoTime();
+        CompletableFuture.supplyAsync(src::count, loader)
+                .thenAcceptAsync(count -> {
+                    if (epoch != cache.epoch()) return;
+                    counting = false;
+                    Metrics.timer("table.refresh").record(System.nanoTime() - start);
+                    int oldSize = size;
+                    size = count;
+                    beginChange();
+                    if (oldSize > 0) nextRemove(0, Collections.nCopies(oldSize, null));
+                    if (count > 0) nextAdd(0, count);
+                    endChange();
+                }, Platform::runLater)
+                .exceptionallyAsync(t -> {
+                    if (epoch == cache.epoch()) loadFailed("table.refresh", t);
+                    return null;
+                }, Platform::runLater);
+    }
+
+    /**
+     * Adds {@code e} as the last row, for a newly inserted expense that the source
+     * would list last (ids only grow). Call on the JavaFX thread.
+     */
+    public void rowAppended(Expense e) {
+        if (counting) {
+            refresh(); // the pending count may or may not include the row
+            return;
+        }
+        int index = size;
+        cache.append(index, e);
+        size++;
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+    }
+
+    /**
+     * Replaces the cached copy of {@code e} (matched by id), if it is loaded.
+     * Call on the JavaFX thread.
+     */
+    public void rowUpdated(Expense e) {
+        PageCache.Patch patch = cache.update(e);
+        if (patch == null) return; // not loaded: it will be read fresh
+        beginChange();
+        nextSet(patch.index(), patch.old());
+        endChange();
+    }
+
+    /**
+     * Removes the row with {@code id}. Pages from that row on are shifted by one and
+     * reloaded as needed; when the row is not loaded the list is refreshed instead.
+     * Call on the JavaFX thread.
+     */
+    public void rowRemoved(int id) {
+        if (counting) {
+            refresh();
+            return;
+        }
+        PageCache.Patch patch = cache.remove(id);
+        if (patch == null) {
+            refresh();
+            return;
+        }
+        size--;
+        beginChange();
+        nextRemove(patch.index(), patch.old());
+        endChange();
+    }
+
+    private void request(int page) {
+        if (page * PAGE_SIZE >= size || cache.contains(page)) return;
+        load(page);
+    }
+
+    // Loads (or reloads) a page in the background and publishes it.
+    private void load(int page) {
+        int gen = cache.startLoad(page);
+        if (gen < 0) return;
+        PageSource src = source;
+        CompletableFuture.supplyAsync(() -> {
+            if (gen != cache.generation()) return PageCache.Fetch.STALE;
+            long start = System.nanoTime();
+            PageCache.Fetch result = cache.fetch(page, src, gen);
+            Metrics.timer("table.loadPage").record(System.nanoTime() - start);
+            return result;
+        }, loader).whenComplete((v, t) -> cache.loadFinished(page, gen)).whenCompleteAsync((result, t) -> {
+            if (t != null) loadFailed("table.loadPage", t);
+            else if (result == PageCache.Fetch.STORED) publish(page, gen);
+            // Fewer rows than the list thinks (deleted elsewhere): re-count rather
+            // than ask for the page again.
+            else if (result == PageCache.Fetch.GONE && gen == cache.generation()) refresh();
+        }, Platform::runLater);
+    }
+
+    private void loadFailed(String operation, Throwable t) {
+        Metrics.error(operation, t);
+        if (onLoadError != null) onLoadError.accept(t);
+    }
+
+    private void publish(int page, int gen) {
+        if (gen != cache.generation()) return;
+        int from = page * PAGE_SIZE;
+        int to = Math.min(size, from + PAGE_SIZE);
+        if (from >= to) return;
+        beginChange();
+        for (int i = from; i < to; i++) {
+            nextSet(i, null);
+        }
+        endChange();
+    }
+}
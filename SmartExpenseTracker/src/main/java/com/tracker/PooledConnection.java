@@ -0,0 +1,71 @@
+package com.tracker;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * PooledConnection:
+ * A connection borrowed from {@link ConnectionPool} together with its cache of
+ * prepared statements. Statements returned by {@link #prepare(String)} are owned by
+ * the cache — callers must close their ResultSets but never the statement itself.
+ * Closing this handle returns the connection to the pool.
+ */
+public class PooledConnection implements AutoCloseable {
+    private static final int MAX_CACHED_STATEMENTS = 64;
+
+    private final ConnectionPool pool;
+    private final Connection conn;
+    private final Map<String, PreparedStatement> statements =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() <= MAX_CACHED_STATEMENTS) return false;
+                    closeStatement(eldest.getValue());
+                    return true;
+                }
+            };
+
+    PooledConnection(ConnectionPool pool, Connection conn) {
+        this.pool = pool;
+        this.conn = conn;
+    }
+
+    public Connection connection() { return conn; }
+
+    /**
+     * Returns a cached prepared statement for the SQL, preparing it on first use.
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement ps = statements.get(sql);
+        if (ps == null || ps.isClosed()) {
+            ps = conn.prepareStatement(sql);
+            statements.put(sql, ps);
+        } else {
+            ps.clearParameters();
+        }
+        return ps;
+    }
+
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+
+    void closeQuietly() {
+        statements.values().forEach(PooledConnection::closeStatement);
+        statements.clear();
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            Metrics.sqlError(e);
+        }
+    }
+
+    private static void closeStatement(PreparedStatement ps) {
+        try {
+            ps.close();
+        } catch (SQLException e) {
+            Metrics.sqlError(e);
+        }
+    }
+}
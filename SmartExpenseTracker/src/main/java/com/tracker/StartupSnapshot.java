@@ -0,0 +1,318 @@
+package com.tracker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * StartupSnapshot:
+ * Compact binary copy of what the main window needs to appear — category totals,
+ * the row count and grand total, budgets, the learned categorizer model and the
+ * first page of rows — written next to the database on exit and read back in one
+ * go on the next launch, so the window renders without scanning the expenses table.
+ *
+ * A snapshot is used only if it still matches the database, checked with a few
+ * statements over small tables rather than on every write: the highest expense id,
+ * the category totals and row count (kept by the totals triggers), the budgets,
+ * the category stats and the learned patterns' count and highest sequence number.
+ * Any insert or delete, and any edit of an amount or category, from any process
+ * (the CLI, another build) makes an older snapshot stale. Edits of a description
+ * or date are not seen, so the first page is re-read in the background once shown.
+ * Stale, corrupt or unknown-version files are ignored.
+ *
+ * Layout (big-endian): magic, format version, highest expense id, learned pattern
+ * count and highest sequence, body length and CRC-32 of the body, then the body
+ * sections in the order above.
+ */
+@SuppressWarnings("try") // Metrics.Sample
+public final class StartupSnapshot {
+    public static final String SUFFIX = ".snapshot";
+    private static final int MAGIC = 0x53455453; // "SETS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 8 + 4 + 4;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private final Map<String, Double> categoryTotals;
+    private final long expenseCount;
+    private final double totalAmount;
+    private final Map<String, Double> budgets;
+    private final List<CategorizerStore.LearnedPattern> patterns;
+    private final Map<String, CategoryStats> stats;
+    private final List<Expense> firstPage;
+
+    private StartupSnapshot(Map<String, Double> categoryTotals, long expenseCount, double totalAmount,
+                            Map<String, Double> budgets, List<CategorizerStore.LearnedPattern> patterns,
+                            Map<String, CategoryStats> stats, List<Expense> firstPage) {
+        this.categoryTotals = categoryTotals;
+        this.expenseCount = expenseCount;
+        this.totalAmount = totalAmount;
+        this.budgets = budgets;
+        this.patterns = patterns;
+        this.stats = stats;
+        this.firstPage = firstPage;
+    }
+
+    public Map<String, Double> categoryTotals() { return categoryTotals; }
+    public long expenseCount() { return expenseCount; }
+    public double totalAmount() { return totalAmount; }
+    public Map<String, Double> budgets() { return budgets; }
+    public List<CategorizerStore.LearnedPattern> patterns() { return patterns; }
+    public Map<String, CategoryStats> stats() { return stats; }
+    /** The first {@link PagedExpenseList#PAGE_SIZE} rows in id order, unfiltered. */
+    public List<Expense> firstPage() { return firstPage; }
+
+    // === Validation ===
+
+    /** {max expense id, learned pattern count, max pattern seq}; null if unreadable. */
+    private static long[] fingerprint(PooledConnection c) {
+        try (ResultSet rs = c.prepare("""
+                SELECT (SELECT IFNULL(MAX(id), 0) FROM expenses),
+                       (SELECT COUNT(*) FROM learned_patterns),
+                       (SELECT IFNULL(MAX(seq), 0) FROM learned_patterns)
+                """).executeQuery()) {
+            if (rs.next()) return new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)};
+        } catch (SQLException e) {
+            Metrics.sqlError(e);
+        }
+        return null;
+    }
+
+    /** Whether the small tables copied whole still hold exactly what the snapshot has. */
+    private boolean matches(PooledConnection c) throws SQLException {
+        Map<String, Double> totals = new HashMap<>();
+        long count = 0;
+        try (ResultSet rs = c.prepare("SELECT category, total, count FROM category_totals").executeQuery()) {
+            while (rs.next()) {
+                totals.put(rs.getString(1), rs.getDouble(2));
+                count += rs.getLong(3);
+            }
+        }
+        if (count != expenseCount || !totals.equals(categoryTotals)) return false;
+
+        Map<String, Double> limits = new HashMap<>();
+        try (ResultSet rs = c.prepare("SELECT category, budget_limit FROM budgets").executeQuery()) {
+            while (rs.next()) limits.put(rs.getString(1), rs.getDouble(2));
+        }
+        if (!limits.equals(budgets)) return false;
+
+        int rows = 0;
+        try (ResultSet rs = c.prepare("SELECT category, count, mean, m2 FROM category_stats").executeQuery()) {
+            while (rs.next()) {
+                CategoryStats s = stats.get(rs.getString(1));
+                if (s == null || s.getCount() != rs.getLong(2) || s.getMean() != rs.getDouble(3)
+                        || s.getM2() != rs.getDouble(4)) return false;
+                rows++;
+            }
+        }
+        return rows == stats.size();
+    }
+
+    /**
+     * Snapshot file of the database behind {@code pool}, or null for an in-memory
+     * database.
+     */
+    public static Path fileOf(ConnectionPool pool) {
+        String url = pool.getUrl();
+        String file = url.startsWith("jdbc:sqlite:") ? url.substring("jdbc:sqlite:".length()) : url;
+        int params = file.indexOf('?');
+        if (params >= 0) file = file.substring(0, params);
+        if (file.isEmpty() || file.startsWith(":memory:") || file.startsWith("file:")) return null;
+        return Path.of(file + SUFFIX);
+    }
+
+    // === Reading ===
+
+    /**
+     * Reads and decodes the snapshot of {@code pool}'s database. Returns null when
+     * there is none or it no longer matches the database.
+     */
+    public static StartupSnapshot read(ConnectionPool pool) {
+        Path file = fileOf(pool);
+        if (file == null || !Files.isRegularFile(file)) return null;
+        try (Metrics.Sample t = Metrics.time("snapshot.read");
+             PooledConnection c = pool.reader()) {
+            // Copied to the heap, not mapped: a mapping stays open until the buffer is
+            // collected, and on Windows that makes write() fail to replace the file.
+            byte[] bytes = Files.readAllBytes(file);
+            if (bytes.length < HEADER_BYTES) return miss("snapshot.corrupt");
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            if (buf.getInt() != MAGIC || buf.getInt() != FORMAT_VERSION) return miss("snapshot.corrupt");
+            long[] taken = {buf.getLong(), buf.getLong(), buf.getLong()};
+            int length = buf.getInt();
+            int crc = buf.getInt();
+            if (length != buf.remaining()) return miss("snapshot.corrupt");
+
+            if (!Arrays.equals(taken, fingerprint(c))) return miss("snapshot.stale");
+            ByteBuffer body = buf.slice();
+            CRC32 check = new CRC32();
+            check.update(body.duplicate());
+            if ((int) check.getValue() != crc) return miss("snapshot.corrupt");
+
+            StartupSnapshot snapshot = decode(body);
+            if (!snapshot.matches(c)) return miss("snapshot.stale");
+            Metrics.counter("snapshot.hits").increment();
+            return snapshot;
+        } catch (SQLException e) {
+            Metrics.sqlError(e);
+            return miss("snapshot.stale");
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            return miss("snapshot.corrupt");
+        }
+    }
+
+    private static StartupSnapshot miss(String counter) {
+        Metrics.counter(counter).increment();
+        return null;
+    }
+
+    private static StartupSnapshot decode(ByteBuffer in) {
+        Map<String, Double> totals = new HashMap<>();
+        for (int i = in.getInt(); i > 0; i--) totals.put(string(in), in.getDouble());
+        long count = in.getLong();
+        double total = in.getDouble();
+
+        Map<String, Double> budgets = new HashMap<>();
+        for (int i = in.getInt(); i > 0; i--) budgets.put(string(in), in.getDouble());
+
+        int n = in.getInt();
+        List<CategorizerStore.LearnedPattern> patterns = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            patterns.add(new CategorizerStore.LearnedPattern(string(in), string(in), in.getLong()));
+        }
+        Map<String, CategoryStats> stats = new HashMap<>();
+        for (int i = in.getInt(); i > 0; i--) {
+            stats.put(string(in), new CategoryStats(in.getLong(), in.getDouble(), in.getDouble()));
+        }
+
+        n = in.getInt();
+        List<Expense> page = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int id = in.getInt();
+            String description = string(in);
+            String category = string(in);
+            double amount = in.getDouble();
+            long day = in.getLong();
+            page.add(new Expense(id, description, category, amount, day == NO_DATE ? null : LocalDate.ofEpochDay(day)));
+        }
+        return new StartupSnapshot(totals, count, total, budgets, patterns, stats, page);
+    }
+
+    private static String string(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // === Writing ===
+
+    /**
+     * Captures the current state of {@code dao}'s database and replaces the snapshot
+     * file atomically. Nothing is written if the database changed while it was being
+     * read. Call with no writes pending, e.g. on exit.
+     */
+    public static void write(ExpenseDAO dao, BudgetManager budgets, CategorizerStore store, ConnectionPool pool) throws IOException {
+        Path file = fileOf(pool);
+        if (file == null) return;
+        try (Metrics.Sample t = Metrics.time("snapshot.write")) {
+            long[] before = fingerprintOf(pool);
+            if (before == null) return;
+            // Caches may predate writes from other processes; copy what is in the database.
+            dao.reloadCategoryTotals();
+            budgets.invalidate();
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            Map<String, Double> totals = dao.getCategoryTotals();
+            out.writeInt(totals.size());
+            double sum = 0;
+            for (var e : totals.entrySet()) {
+                string(out, e.getKey());
+                out.writeDouble(e.getValue());
+                sum += e.getValue();
+            }
+            out.writeLong(dao.getExpenseCount());
+            out.writeDouble(sum);
+
+            Map<String, Double> limits = budgets.getAllBudgets();
+            out.writeInt(limits.size());
+            for (var e : limits.entrySet()) {
+                string(out, e.getKey());
+                out.writeDouble(e.getValue());
+            }
+
+            List<CategorizerStore.LearnedPattern> patterns = store.loadPatterns(AutoCategorizer.DEFAULT_MAX_LEARNED);
+            out.writeInt(patterns.size());
+            for (var p : patterns) {
+                string(out, p.pattern());
+                string(out, p.category());
+                out.writeLong(p.seq());
+            }
+            Map<String, CategoryStats> stats = store.loadStats();
+            out.writeInt(stats.size());
+            for (var e : stats.entrySet()) {
+                string(out, e.getKey());
+                out.writeLong(e.getValue().getCount());
+                out.writeDouble(e.getValue().getMean());
+                out.writeDouble(e.getValue().getM2());
+            }
+
+            List<Expense> page = dao.getExpensesAfter("", 0, PagedExpenseList.PAGE_SIZE);
+            out.writeInt(page.size());
+            for (Expense e : page) {
+                out.writeInt(e.getId());
+                string(out, e.getDescription());
+                string(out, e.getCategory());
+                out.writeDouble(e.getAmount());
+                out.writeLong(e.getDate() == null ? NO_DATE : e.getDate().toEpochDay());
+            }
+            out.flush();
+
+            if (!Arrays.equals(before, fingerprintOf(pool))) {
+                Metrics.counter("snapshot.skipped").increment();
+                return;
+            }
+            byte[] body = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC).putInt(FORMAT_VERSION)
+                    .putLong(before[0]).putLong(before[1]).putLong(before[2])
+                    .putInt(body.length).putInt((int) crc.getValue());
+
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer[] parts = {header.flip(), ByteBuffer.wrap(body)};
+                while (parts[1].hasRemaining()) ch.write(parts);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    private static long[] fingerprintOf(ConnectionPool pool) {
+        try (PooledConnection c = pool.reader()) {
+            return fingerprint(c);
+        }
+    }
+
+    private static void string(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
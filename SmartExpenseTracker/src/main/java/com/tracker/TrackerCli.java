@@ -0,0 +1,371 @@
+package com.tracker;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TrackerCli:
+ * Headless entry point for batch jobs (cron, scripts). Uses the same DAO, budget and
+ * categorizer classes as the app but never touches JavaFX, so it starts in a
+ * fraction of the GUI's time and memory.
+ *
+ * <pre>
+ * tracker [--db FILE | --ledger NAME] [--ledgers DIR] [--metrics] COMMAND ...
+ *   import FILE.csv [--batch N]
+ *   export FILE[.csv|.csv.gz] [PERIOD] [--category C]
+ *   categorize [DESCRIPTION ...]        (reads lines from stdin when none given)
+ *   totals [PERIOD] [--category C]
+ *   stats [PERIOD] [--category C] [--text T] [--min X] [--max X]
+ *                                       (count, total, average and largest per category)
+ *   budget list | set CATEGORY LIMIT | check
+ *   serve [--port N]                    (JSON API on localhost until killed, see {@link ApiServer})
+ *   ledgers [PERIOD] [--category C]     (totals of every ledger in the ledger directory)
+ * PERIOD: --month yyyy-MM | --from yyyy-MM-dd --to yyyy-MM-dd (inclusive)
+ * </pre>
+ *
+ * Exit status is 0 on success, 1 on usage or I/O errors, and 2 when
+ * {@code budget check} finds a budget at or over its limit.
+ */
+public class TrackerCli {
+    static final int OK = 0;
+    static final int ERROR = 1;
+    static final int OVER_BUDGET = 2;
+    private static final long SHUTDOWN_WAIT_SECONDS = 10;
+
+    private final PrintStream out;
+    private final PrintStream err;
+    private final CountDownLatch finished = new CountDownLatch(1); // run() has cleaned up
+    private volatile boolean stopping; // the JVM is shutting down under us (serve)
+
+    public TrackerCli(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    public static void main(String[] args) {
+        TrackerCli cli = new TrackerCli(System.out, System.err);
+        int status = cli.run(args);
+        // System.exit blocks forever if called while shutdown hooks are running.
+        if (!cli.stopping) System.exit(status);
+    }
+
+    public int run(String[] argv) {
+        try {
+            return execute(argv);
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    private int execute(String[] argv) {
+        Deque<String> args = new ArrayDeque<>(Arrays.asList(argv));
+        String dbFile = "expenses.db";
+        String ledger = null;
+        Path ledgerDir = Path.of(DBHelper.LEDGER_DIR);
+        boolean metrics = false;
+        while (!args.isEmpty() && args.peek().startsWith("--")) {
+            String opt = args.pop();
+            switch (opt) {
+                case "--db" -> dbFile = required(args, opt);
+                case "--ledger" -> ledger = required(args, opt);
+                case "--ledgers" -> ledgerDir = Path.of(required(args, opt));
+                case "--metrics" -> metrics = true;
+                case "--help" -> {
+                    usage(out);
+                    return OK;
+                }
+                default -> {
+                    err.println("Unknown option: " + opt);
+                    usage(err);
+                    return ERROR;
+                }
+            }
+        }
+        if (args.isEmpty()) {
+            usage(err);
+            return ERROR;
+        }
+
+        String command = args.pop();
+        if (command.equals("ledgers")) {
+            try (LedgerRouter router = new LedgerRouter(ledgerDir)) {
+                return ledgers(router, args);
+            } catch (IllegalArgumentException | IllegalStateException | DateTimeException | UncheckedIOException e) {
+                err.println("Error: " + e.getMessage());
+                return ERROR;
+            } finally {
+                if (metrics) err.print(Metrics.report());
+            }
+        }
+        ConnectionPool pool;
+        try {
+            if (ledger != null) {
+                Files.createDirectories(ledgerDir);
+                dbFile = LedgerRouter.fileOf(ledgerDir, ledger).toString();
+            }
+            pool = new ConnectionPool("jdbc:sqlite:" + dbFile);
+        } catch (IllegalArgumentException | IllegalStateException | IOException e) {
+            err.println("Error: " + e.getMessage());
+            return ERROR;
+        }
+        try {
+            ExpenseDAO dao = new ExpenseDAO(pool, new AutoCategorizer());
+            dao.createTable();
+            return switch (command) {
+                case "import" -> importCsv(dao, pool, args);
+                case "export" -> export(dao, args);
+                case "categorize" -> categorize(dao, pool, args);
+                case "totals" -> totals(dao, args);
+                case "stats" -> stats(dao, args);
+                case "budget" -> budget(dao, pool, args);
+                case "serve" -> serve(dao, pool, args);
+                case "help" -> {
+                    usage(out);
+                    yield OK;
+                }
+                default -> {
+                    err.println("Unknown command: " + command);
+                    usage(err);
+                    yield ERROR;
+                }
+            };
+        } catch (IllegalArgumentException | DateTimeException | IOException e) {
+            err.println("Error: " + e.getMessage());
+            return ERROR;
+        } finally {
+            pool.close();
+            if (metrics) err.print(Metrics.report());
+        }
+    }
+
+    // === Commands ===
+
+    private int importCsv(ExpenseDAO dao, ConnectionPool pool, Deque<String> args) throws IOException {
+        Path file = Path.of(required(args, "import"));
+        int batch = ExpenseDAO.DEFAULT_BATCH_SIZE;
+        while (!args.isEmpty()) {
+            String opt = args.pop();
+            if (opt.equals("--batch")) batch = Integer.parseInt(required(args, opt));
+            else throw new IllegalArgumentException("Unknown import option: " + opt);
+        }
+        dao.getCategorizer().attach(new CategorizerStore(pool));
+        ImportResult result = dao.importCsv(file, batch);
+        dao.getCategorizer().flush();
+        out.println(result);
+        result.getFailures().forEach(f -> err.println(f));
+        return OK;
+    }
+
+    private int export(ExpenseDAO dao, Deque<String> args) throws IOException {
+        Path file = Path.of(required(args, "export"));
+        Filters f = filters(args);
+        long rows = new CsvExporter(dao).range(f.range).category(f.category).export(file, null);
+        out.println("Exported " + rows + " rows to " + file);
+        return OK;
+    }
+
+    private int categorize(ExpenseDAO dao, ConnectionPool pool, Deque<String> args) throws IOException {
+        AutoCategorizer categorizer = dao.getCategorizer();
+        categorizer.attach(new CategorizerStore(pool));
+        if (!args.isEmpty()) {
+            for (String desc : args) out.println(categorizer.suggestCategory(desc) + "\t" + desc);
+            return OK;
+        }
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!line.isBlank()) out.println(categorizer.suggestCategory(line) + "\t" + line);
+        }
+        return OK;
+    }
+
+    private int totals(ExpenseDAO dao, Deque<String> args) {
+        Filters f = filters(args);
+        Map<String, Double> totals = new TreeMap<>(f.range == null ? dao.getCategoryTotals() : dao.getCategoryTotals(f.range));
+        double sum = 0;
+        for (Map.Entry<String, Double> e : totals.entrySet()) {
+            if (f.category != null && !f.category.equals(e.getKey())) continue;
+            out.printf(Locale.ROOT, "%-16s %12.2f%n", e.getKey().isEmpty() ? "(none)" : e.getKey(), e.getValue());
+            sum += e.getValue();
+        }
+        out.printf(Locale.ROOT, "%-16s %12.2f%n", "TOTAL", sum);
+        return OK;
+    }
+
+    // Ad-hoc slices the rollup tables can't answer: loads the period's rows into
+    // columns once and scans them.
+    private int stats(ExpenseDAO dao, Deque<String> args) {
+        String text = null;
+        double min = Double.NEGATIVE_INFINITY, max = Double.POSITIVE_INFINITY;
+        Deque<String> period = new ArrayDeque<>();
+        while (!args.isEmpty()) {
+            String opt = args.pop();
+            switch (opt) {
+                case "--text" -> text = required(args, opt);
+                case "--min" -> min = Double.parseDouble(required(args, opt));
+                case "--max" -> max = Double.parseDouble(required(args, opt));
+                default -> period.add(opt);
+            }
+        }
+        Filters f = filters(period);
+        ExpenseColumns columns = dao.loadColumns(f.range, f.category);
+        int[] rows = columns.filter(null, null, min, max);
+        if (text != null) rows = columns.descriptionContains(text, rows);
+
+        Map<String, ExpenseColumns.CategorySummary> stats = new TreeMap<>(columns.statsByCategory(rows));
+        out.printf(Locale.ROOT, "%-16s %8s %12s %12s %12s%n", "CATEGORY", "COUNT", "TOTAL", "AVERAGE", "LARGEST");
+        double sum = 0;
+        for (Map.Entry<String, ExpenseColumns.CategorySummary> e : stats.entrySet()) {
+            ExpenseColumns.CategorySummary s = e.getValue();
+            out.printf(Locale.ROOT, "%-16s %8d %12.2f %12.2f %12.2f%n",
+                    e.getKey().isEmpty() ? "(none)" : e.getKey(), s.count(), s.total(), s.average(), s.max());
+            sum += s.total();
+        }
+        out.printf(Locale.ROOT, "%-16s %8d %12.2f%n", "TOTAL", rows.length, sum);
+        return OK;
+    }
+
+    private int budget(ExpenseDAO dao, ConnectionPool pool, Deque<String> args) {
+        BudgetManager budgets = new BudgetManager(pool);
+        String sub = args.isEmpty() ? "check" : args.pop();
+        switch (sub) {
+            case "list" -> {
+                new TreeMap<>(budgets.getAllBudgets()).forEach((cat, limit) ->
+                        out.printf(Locale.ROOT, "%-16s %12.2f%n", cat, limit));
+                return OK;
+            }
+            case "set" -> {
+                String category = required(args, "budget set");
+                double limit = Double.parseDouble(required(args, "budget set"));
+                budgets.setBudget(category, limit);
+                out.printf(Locale.ROOT, "%s budget set to %.2f%n", category, limit);
+                return OK;
+            }
+            case "check" -> {
+                BudgetEngine engine = new BudgetEngine(dao, budgets, BudgetRule.defaults());
+                List<BudgetAlert> alerts = engine.evaluateAll();
+                boolean exceeded = false;
+                for (BudgetAlert a : alerts) {
+                    out.printf(Locale.ROOT, "%-8s %-16s %5.0f%%  spent %.2f of %.2f (%s)%n",
+                            a.isExceeded() ? "EXCEEDED" : "WARNING", a.category(), a.percentage(),
+                            a.spent(), a.limit(), a.rule().period().name().toLowerCase());
+                    exceeded |= a.isExceeded();
+                }
+                if (alerts.isEmpty()) out.println("All budgets OK");
+                return exceeded ? OVER_BUDGET : OK;
+            }
+            default -> throw new IllegalArgumentException("Unknown budget command: " + sub);
+        }
+    }
+
+    private int serve(ExpenseDAO dao, ConnectionPool pool, Deque<String> args) throws IOException {
+        int port = ApiServer.DEFAULT_PORT;
+        while (!args.isEmpty()) {
+            String opt = args.pop();
+            if (opt.equals("--port")) port = Integer.parseInt(required(args, opt));
+            else throw new IllegalArgumentException("Unknown serve option: " + opt);
+        }
+        dao.getCategorizer().attach(new CategorizerStore(pool));
+        BudgetManager budgets = new BudgetManager(pool);
+        BudgetEngine engine = new BudgetEngine(dao, budgets, BudgetRule.defaults());
+        dao.addListener(engine);
+        CountDownLatch stopped = new CountDownLatch(1);
+        // The JVM halts as soon as the hook returns, so it waits for run() to close the
+        // database and print metrics.
+        Thread hook = new Thread(() -> {
+            stopping = true;
+            stopped.countDown();
+            try {
+                finished.await(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "serve-shutdown");
+        try (ApiServer server = new ApiServer(dao, budgets, engine, port)) {
+            server.start();
+            Runtime.getRuntime().addShutdownHook(hook);
+            err.println("Serving on http://127.0.0.1:" + server.getPort() + "/api/");
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Runtime.getRuntime().removeShutdownHook(hook);
+        }
+        return OK;
+    }
+
+    private int ledgers(LedgerRouter router, Deque<String> args) {
+        Filters f = filters(args);
+        List<String> names = router.ledgers();
+        Map<String, Map<String, Double>> byLedger = router.getCategoryTotalsByLedger(names, f.range);
+        Map<String, Double> combined = new TreeMap<>();
+        double sum = 0;
+        for (Map.Entry<String, Map<String, Double>> e : byLedger.entrySet()) {
+            double ledgerTotal = 0;
+            for (Map.Entry<String, Double> c : e.getValue().entrySet()) {
+                if (f.category != null && !f.category.equals(c.getKey())) continue;
+                combined.merge(c.getKey(), c.getValue(), Double::sum);
+                ledgerTotal += c.getValue();
+            }
+            out.printf(Locale.ROOT, "%-16s %12.2f%n", e.getKey(), ledgerTotal);
+            sum += ledgerTotal;
+        }
+        out.println();
+        combined.forEach((cat, total) ->
+                out.printf(Locale.ROOT, "%-16s %12.2f%n", cat.isEmpty() ? "(none)" : cat, total));
+        out.printf(Locale.ROOT, "%-16s %12.2f%n", "TOTAL (" + names.size() + ")", sum);
+        return OK;
+    }
+
+    // === Arguments ===
+
+    private record Filters(DateRange range, String category) {
+    }
+
+    private static Filters filters(Deque<String> args) {
+        DateRange range = null;
+        LocalDate from = null, to = null;
+        String category = null;
+        while (!args.isEmpty()) {
+            String opt = args.pop();
+            switch (opt) {
+                case "--month" -> range = DateRange.month(YearMonth.parse(required(args, opt)));
+                case "--from" -> from = LocalDate.parse(required(args, opt));
+                case "--to" -> to = LocalDate.parse(required(args, opt));
+                case "--category" -> category = required(args, opt);
+                default -> throw new IllegalArgumentException("Unknown option: " + opt);
+            }
+        }
+        if (from != null || to != null) {
+            if (range != null) throw new IllegalArgumentException("Use either --month or --from/--to");
+            range = DateRange.of(from == null ? LocalDate.of(1970, 1, 1) : from, to == null ? LocalDate.now() : to);
+        }
+        return new Filters(range, category);
+    }
+
+    private static String required(Deque<String> args, String after) {
+        if (args.isEmpty()) throw new IllegalArgumentException("Missing argument after " + after);
+        return args.pop();
+    }
+
+    private static void usage(PrintStream s) {
+        s.println("""
+                Usage: tracker [--db FILE | --ledger NAME] [--ledgers DIR] [--metrics] COMMAND ...
+                  import FILE.csv [--batch N]
+                  export FILE[.csv|.csv.gz] [PERIOD] [--category C]
+                  categorize [DESCRIPTION ...]   (reads stdin when none given)
+                  totals [PERIOD] [--category C]
+                  stats [PERIOD] [--category C] [--text T] [--min X] [--max X]
+                  budget list | set CATEGORY LIMIT | check
+                  serve [--port N]
+                  ledgers [PERIOD] [--category C]
+                --ledger NAME uses DIR/NAME.db (DIR from --ledgers, default ledgers)
+                PERIOD: --month yyyy-MM | --from yyyy-MM-dd --to yyyy-MM-dd""");
+    }
+}
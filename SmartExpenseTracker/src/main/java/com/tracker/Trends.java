@@ -0,0 +1,93 @@
+package com.tracker;
+
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Trends:
+ * Chart-ready spending series built from the daily and monthly rollup tables only,
+ * so building one costs the same for a thousand expenses or ten million.
+ *
+ * Long spans are downsampled: daily lines are averaged in SQL over buckets of
+ * several days, and monthly bars are merged into quarters, years or several years
+ * (summed, so every bar is still a true total). A chart gets at most a few hundred
+ * points per category whatever the span.
+ */
+public final class Trends {
+
+    /** One category's line: x is the epoch day, y the average spent per day from x on. */
+    public record Line(String category, double[] x, double[] y) {
+    }
+
+    /** Stacked bars: one label per bar, and each category's amount in every bar. */
+    public record Bars(List<String> labels, Map<String, double[]> byCategory) {
+    }
+
+    private Trends() {
+    }
+
+    /**
+     * Average daily spend per category over {@code range}, zero on days without
+     * expenses. A range longer than {@code maxPoints} days is cut into equal buckets
+     * of days, each plotted once at its first day with the bucket's daily average.
+     */
+    public static List<Line> daily(ExpenseDAO dao, DateRange range, int maxPoints) {
+        int days = (int) ChronoUnit.DAYS.between(range.start(), range.end());
+        int bucketDays = Math.max(1, (days + maxPoints - 1) / Math.max(1, maxPoints));
+        int n = (days + bucketDays - 1) / bucketDays;
+        long firstDay = range.start().toEpochDay();
+
+        Map<String, double[]> dense = new TreeMap<>();
+        dao.getBucketedCategoryTotals(range, bucketDays).forEach((from, totals) -> {
+            int b = (int) ((from.toEpochDay() - firstDay) / bucketDays);
+            int daysInBucket = Math.min(bucketDays, days - b * bucketDays);
+            totals.forEach((cat, total) -> dense.computeIfAbsent(cat, k -> new double[n])[b] = total / daysInBucket);
+        });
+
+        double[] x = new double[n];
+        for (int b = 0; b < n; b++) x[b] = firstDay + (long) b * bucketDays;
+        List<Line> lines = new ArrayList<>();
+        dense.forEach((cat, y) -> lines.add(new Line(cat, x, y)));
+        return lines;
+    }
+
+    /**
+     * Spend per category for each month from {@code first} to {@code last}, merged
+     * into longer periods when there would be more than {@code maxBars} bars.
+     */
+    public static Bars monthly(ExpenseDAO dao, YearMonth first, YearMonth last, int maxBars) {
+        long months = ChronoUnit.MONTHS.between(first, last) + 1;
+        int step = bucketMonths(months, maxBars);
+        YearMonth start = step <= 12
+                ? first.minusMonths((first.getMonthValue() - 1) % step)
+                : YearMonth.of(first.getYear(), 1);
+        int bars = (int) ((ChronoUnit.MONTHS.between(start, last) + step) / step);
+
+        List<String> labels = new ArrayList<>(bars);
+        for (int b = 0; b < bars; b++) labels.add(label(start.plusMonths((long) b * step), step));
+        Map<String, double[]> byCategory = new TreeMap<>();
+        dao.getMonthlyCategoryTotals(start, last).forEach((month, totals) -> {
+            int b = (int) (ChronoUnit.MONTHS.between(start, month) / step);
+            totals.forEach((cat, total) -> byCategory.computeIfAbsent(cat, k -> new double[bars])[b] += total);
+        });
+        return new Bars(labels, byCategory);
+    }
+
+    // Months per bar: 1, 3 or 12, then whole years.
+    static int bucketMonths(long months, int maxBars) {
+        for (int step : new int[]{1, 3, 12}) {
+            if (months <= (long) maxBars * step) return step;
+        }
+        return (int) (12 * Math.ceil(months / (12.0 * maxBars)));
+    }
+
+    private static String label(YearMonth from, int step) {
+        return switch (step) {
+            case 1 -> from.toString();
+            case 3 -> from.getYear() + " Q" + ((from.getMonthValue() - 1) / 3 + 1);
+            case 12 -> String.valueOf(from.getYear());
+            default -> from.getYear() + "–" + from.plusMonths(step - 1).getYear();
+        };
+    }
+}
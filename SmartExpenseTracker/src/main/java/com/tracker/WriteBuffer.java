@@ -0,0 +1,218 @@
+package com.tracker;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * WriteBuffer:
+ * Asynchronous insert path with group commit. {@link #append} queues an expense and
+ * returns at once; a single writer thread takes whatever has queued up (at most
+ * {@code maxBatch} rows, waiting at most {@code maxDelay} for more after the first)
+ * and inserts it in one transaction, so a burst of quick entries pays for one
+ * commit instead of one per row. Each future completes with the row's id once its
+ * group has committed at the configured {@link Durability}, or exceptionally with
+ * the SQLException if that row (or the whole commit) failed.
+ *
+ * Attached to an {@link ExpenseDAO}, which flushes the queue before every read and
+ * synchronous write, so callers always see their own appended rows. The DAO's
+ * listeners run on the writer thread before a waiting flush returns, so a listener
+ * must never wait on a lock that is held across a read or flush.
+ */
+@SuppressWarnings("try") // Metrics.Sample
+public class WriteBuffer implements AutoCloseable {
+    public static final int DEFAULT_MAX_BATCH = 500;
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofMillis(1);
+
+    /**
+     * What a completed future promises about the row, mapped to SQLite's
+     * {@code synchronous} setting for the group's commit.
+     */
+    public enum Durability {
+        /** Handed to the OS: survives the app crashing, not a power loss. */
+        OFF,
+        /** WAL default: survives crashes; a power loss may undo the last few commits. */
+        NORMAL,
+        /** Synced to disk before the future completes: survives a power loss. */
+        FULL;
+
+        /** From {@code tracker.write.durability}; NORMAL when unset or not a valid level. */
+        public static Durability fromSystemProperties() {
+            String value = System.getProperty("tracker.write.durability", NORMAL.name());
+            try {
+                return valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                Logger.getLogger(WriteBuffer.class.getName())
+                        .warning("Unknown tracker.write.durability '" + value + "', using " + NORMAL);
+                return NORMAL;
+            }
+        }
+    }
+
+    private record Pending(Expense expense, CompletableFuture<Integer> ack) {
+    }
+
+    // Queued by flush() to cut the current wait short.
+    private static final Pending FLUSH = new Pending(null, null);
+
+    private final ExpenseDAO dao;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final AtomicLong appended = new AtomicLong();
+    private final Object progress = new Object();
+    private final Object lifecycle = new Object(); // orders appends against close()
+    private long written; // rows taken off the queue and committed (or failed), guarded by progress
+    private volatile Durability durability;
+    private volatile boolean closed;
+
+    public WriteBuffer(ExpenseDAO dao) {
+        this(dao, DEFAULT_MAX_BATCH, DEFAULT_MAX_DELAY, Durability.NORMAL);
+    }
+
+    public WriteBuffer(ExpenseDAO dao, int maxBatch, Duration maxDelay, Durability durability) {
+        this.dao = dao;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.maxDelayNanos = Math.max(0, maxDelay.toNanos());
+        this.durability = durability;
+        this.writer = new Thread(this::run, "write-buffer");
+        writer.setDaemon(true);
+        writer.start();
+        dao.attach(this);
+    }
+
+    public Durability getDurability() { return durability; }
+
+    /** Applies from the next group commit on. */
+    public void setDurability(Durability durability) {
+        this.durability = durability;
+    }
+
+    /**
+     * Queues {@code e} for insertion. The future completes on the writer thread, after
+     * the insert event has been delivered to the DAO's listeners.
+     */
+    public CompletableFuture<Integer> append(Expense e) {
+        CompletableFuture<Integer> ack = new CompletableFuture<>();
+        // Under the lock so no row can be queued after close() has queued its final flush.
+        synchronized (lifecycle) {
+            if (closed) throw new IllegalStateException("Write buffer is closed");
+            appended.incrementAndGet();
+            queue.add(new Pending(e, ack));
+        }
+        return ack;
+    }
+
+    /** Rows appended but not yet committed. */
+    public long pending() {
+        synchronized (progress) {
+            return appended.get() - written;
+        }
+    }
+
+    /**
+     * Blocks until every row appended before this call has been committed and its
+     * future completed. Returns at once on the writer thread itself, i.e. from an
+     * insert listener.
+     */
+    public void flush() {
+        if (Thread.currentThread() == writer) return;
+        long target = appended.get();
+        synchronized (progress) {
+            if (written >= target) return;
+            queue.add(FLUSH);
+            try (Metrics.Sample t = Metrics.time("writeBuffer.flushWait")) {
+                while (written < target) progress.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Commits everything still queued and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        synchronized (lifecycle) {
+            if (closed) return;
+            closed = true;
+            queue.add(FLUSH);
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dao.detach(this);
+    }
+
+    private void run() {
+        List<Pending> group = new ArrayList<>(maxBatch);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                collect(group);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (!group.isEmpty()) commit(group);
+            group.clear();
+        }
+    }
+
+    /**
+     * Waits for a first row, then keeps taking rows until the group is full, the
+     * delay has passed or a flush is requested.
+     */
+    private void collect(List<Pending> group) throws InterruptedException {
+        Pending p = queue.take();
+        long deadline = System.nanoTime() + maxDelayNanos;
+        while (true) {
+            if (p == FLUSH) {
+                // A flush commits without waiting, but still takes whatever is already queued.
+                queue.drainTo(group, maxBatch - group.size());
+                group.removeIf(x -> x == FLUSH);
+                return;
+            }
+            group.add(p);
+            if (group.size() >= maxBatch) return;
+            long left = deadline - System.nanoTime();
+            p = left > 0 ? queue.poll(left, TimeUnit.NANOSECONDS) : queue.poll();
+            if (p == null) return;
+        }
+    }
+
+    private void commit(List<Pending> group) {
+        List<Expense> rows = new ArrayList<>(group.size());
+        for (Pending p : group) rows.add(p.expense());
+        int[] ids;
+        SQLException[] errors = new SQLException[group.size()];
+        try {
+            ids = dao.insertGroup(rows, durability, errors);
+        } catch (RuntimeException e) {
+            for (Pending p : group) p.ack().completeExceptionally(e);
+            advance(group.size());
+            return;
+        }
+        Metrics.counter("writeBuffer.rows").add(group.size());
+        Metrics.counter("writeBuffer.commits").increment();
+        // Complete before advancing, so a flush() that returns leaves no future pending.
+        for (int i = 0; i < group.size(); i++) {
+            if (errors[i] != null) group.get(i).ack().completeExceptionally(errors[i]);
+            else group.get(i).ack().complete(ids[i]);
+        }
+        advance(group.size());
+    }
+
+    private void advance(int rows) {
+        synchronized (progress) {
+            written += rows;
+            progress.notifyAll();
+        }
+    }
+}
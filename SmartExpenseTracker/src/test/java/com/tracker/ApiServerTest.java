@@ -0,0 +1,92 @@
+package com.tracker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiServerTest extends DatabaseTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private BudgetManager budgets;
+    private ApiServer server;
+    private int lunch;
+
+    @BeforeEach
+    void open() throws IOException {
+        lunch = dao.insertExpense(new Expense(0, "uber lunch run", "Food", 100, DAY));
+        dao.insertExpense(new Expense(0, "uber uber", "Transport", 20, DAY));
+        dao.insertExpense(new Expense(0, "dinner", "Food", 50, DAY.plusMonths(1)));
+        budgets = new BudgetManager(pool);
+        server = new ApiServer(dao, budgets, new BudgetEngine(dao, budgets, BudgetRule.defaults()), 0, 2);
+        server.start();
+    }
+
+    @AfterEach
+    void close() {
+        server.close();
+    }
+
+    private HttpResponse<String> get(String path, String etag) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + path));
+        if (etag != null) request.header("If-None-Match", etag);
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String body(String path) throws IOException, InterruptedException {
+        HttpResponse<String> response = get(path, null);
+        assertEquals(200, response.statusCode(), response.body());
+        return response.body();
+    }
+
+    @Test
+    void servesTotalsPagesAndSearches() throws Exception {
+        assertEquals("{\"Food\":150.0,\"Transport\":20.0}", body("/api/totals"));
+        assertEquals("{\"Food\":100.0,\"Transport\":20.0}", body("/api/totals?month=2024-03"));
+
+        String page = body("/api/expenses?q=uber&limit=1");
+        assertTrue(page.startsWith("{\"items\":[{\"id\":" + lunch + ","), page);
+        assertTrue(page.endsWith("\"next\":" + lunch + "}"), page);
+        assertTrue(body("/api/expenses?q=uber&after=" + lunch).endsWith("\"next\":null}"));
+
+        String search = body("/api/search?q=uber&limit=1");
+        assertTrue(search.contains("\"description\":\"uber uber\""), search);
+        assertFalse(search.contains("lunch"), search);
+    }
+
+    @Test
+    void etagsRevalidateUntilTheDataChanges() throws Exception {
+        HttpResponse<String> first = get("/api/totals", null);
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+        assertEquals(304, get("/api/totals", etag).statusCode());
+
+        dao.insertExpense(new Expense(0, "rent", "Housing", 900, DAY));
+        HttpResponse<String> changed = get("/api/totals", etag);
+        assertEquals(200, changed.statusCode());
+        assertNotEquals(etag, changed.headers().firstValue("ETag").orElseThrow());
+        assertTrue(changed.body().contains("\"Housing\":900.0"));
+
+        budgets.setBudget("Food", 500);
+        assertEquals("{\"Food\":500.0}", body("/api/budgets"));
+    }
+
+    @Test
+    void badRequestsGetJsonErrors() throws Exception {
+        HttpResponse<String> missing = get("/api/nothing", null);
+        assertEquals(404, missing.statusCode());
+        assertTrue(missing.body().startsWith("{\"error\":"));
+        assertEquals(400, get("/api/search", null).statusCode());
+        assertEquals(400, get("/api/totals?month=March", null).statusCode());
+        assertEquals(400, get("/api/expenses?limit=many", null).statusCode());
+
+        HttpRequest post = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + "/api/totals"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build();
+        assertEquals(405, client.send(post, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+}
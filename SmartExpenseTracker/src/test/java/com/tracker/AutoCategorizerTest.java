@@ -0,0 +1,86 @@
+package com.tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AutoCategorizerTest extends DatabaseTest {
+
+    @Test
+    void aFlushStartedLaterNeverSavesBeforeAnEarlierOne() throws Exception {
+        // The first save stalls until released, holding an older copy of the model.
+        CountDownLatch firstSaving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean first = new AtomicBoolean(true);
+        CategorizerStore store = new CategorizerStore(pool) {
+            @Override
+            public void save(Collection<LearnedPattern> upserts, Collection<String> removed, Map<String, CategoryStats> stats) {
+                if (first.getAndSet(false)) {
+                    firstSaving.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.save(upserts, removed, stats);
+            }
+        };
+        AutoCategorizer categorizer = new AutoCategorizer();
+        categorizer.attach(store);
+
+        categorizer.learn("corner shop", "Food", 10);
+        CompletableFuture<Void> older = CompletableFuture.runAsync(categorizer::flush);
+        assertTrue(firstSaving.await(5, TimeUnit.SECONDS));
+        categorizer.learn("corner shop", "Food", 30);
+        CompletableFuture<Void> newer = CompletableFuture.runAsync(categorizer::flush);
+        try {
+            newer.get(200, TimeUnit.MILLISECONDS); // only finishes here if it overtook
+        } catch (TimeoutException expected) {
+            // waiting for the older flush, as it should
+        }
+        release.countDown();
+        older.get(5, TimeUnit.SECONDS);
+        newer.get(5, TimeUnit.SECONDS);
+
+        CategoryStats saved = new CategorizerStore(pool).loadStats().get("Food");
+        assertEquals(2, saved.getCount());
+        assertEquals(20.0, saved.getMean());
+    }
+
+    @Test
+    void changesFromAFailedSaveAreSavedByTheNextFlush() {
+        AtomicBoolean failing = new AtomicBoolean();
+        CategorizerStore store = new CategorizerStore(pool) {
+            @Override
+            public void save(Collection<LearnedPattern> upserts, Collection<String> removed, Map<String, CategoryStats> stats) {
+                if (failing.get()) throw new IllegalStateException("disk full");
+                super.save(upserts, removed, stats);
+            }
+        };
+        AutoCategorizer categorizer = new AutoCategorizer();
+        categorizer.setMaxLearned(1);
+        categorizer.attach(store);
+        categorizer.learn("corner shop", "Food", 10);
+        categorizer.flush();
+        categorizer.learn("city bus", "Transport", 2); // evicts "corner shop"
+
+        failing.set(true);
+        assertThrows(IllegalStateException.class, categorizer::flush);
+        failing.set(false);
+        categorizer.flush();
+
+        CategorizerStore saved = new CategorizerStore(pool);
+        assertEquals(List.of("city bus"), saved.loadPatterns(10).stream().map(CategorizerStore.LearnedPattern::pattern).toList());
+        assertEquals(1, saved.loadStats().get("Transport").getCount());
+    }
+}
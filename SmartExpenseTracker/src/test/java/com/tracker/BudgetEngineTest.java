@@ -0,0 +1,102 @@
+package com.tracker;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BudgetEngineTest extends DatabaseTest {
+    private final LocalDate today = LocalDate.now();
+    private final List<BudgetAlert> fired = new ArrayList<>();
+    private BudgetEngine engine;
+
+    @BeforeEach
+    void open() {
+        BudgetManager budgets = new BudgetManager(pool);
+        budgets.setBudget("Food", 100);
+        engine = new BudgetEngine(dao, budgets, BudgetRule.defaults());
+        engine.addListener(fired::add);
+    }
+
+    private List<Double> firedThresholds() {
+        return fired.stream().map(a -> a.rule().thresholdPercent()).toList();
+    }
+
+    private double monthlySpend() {
+        return engine.evaluateAll().stream()
+                .filter(a -> a.rule().period() == BudgetPeriod.MONTHLY)
+                .mapToDouble(BudgetAlert::spent).findFirst().orElse(0);
+    }
+
+    @Test
+    void alertsOnceWhenEachThresholdIsFirstCrossed() {
+        dao.addListener(engine);
+        dao.insertExpense(new Expense(0, "lunch", "Food", 50, today));
+        assertTrue(fired.isEmpty());
+        dao.insertExpense(new Expense(0, "dinner", "Food", 35, today));
+        assertEquals(List.of(80.0), firedThresholds());
+        dao.insertExpense(new Expense(0, "snack", "Food", 5, today));
+        assertEquals(List.of(80.0), firedThresholds());
+        dao.insertExpense(new Expense(0, "party", "Food", 20, today));
+        assertEquals(List.of(80.0, 100.0), firedThresholds());
+        dao.insertExpense(new Expense(0, "bus", "Transport", 500, today)); // no budget
+        assertEquals(2, fired.size());
+    }
+
+    @Test
+    void droppingBelowAThresholdRearmsIt() {
+        dao.addListener(engine);
+        int dinner = dao.insertExpense(new Expense(0, "dinner", "Food", 85, today));
+        dao.deleteExpense(dinner);
+        assertEquals(0.0, monthlySpend());
+        dao.insertExpense(new Expense(0, "dinner again", "Food", 85, today));
+        assertEquals(List.of(80.0, 80.0), firedThresholds());
+    }
+
+    @Test
+    void editingAnOverBudgetExpenseDoesNotAlertAgain() {
+        dao.addListener(engine);
+        int dinner = dao.insertExpense(new Expense(0, "dinner", "Food", 85, today));
+        assertEquals(List.of(80.0), firedThresholds());
+        dao.updateExpense(new Expense(dinner, "dinner", "Food", 84, today)); // amount typo
+        dao.updateExpense(new Expense(dinner, "dinner", "Food", 84, today.withDayOfMonth(1)));
+        assertEquals(84.0, monthlySpend());
+        assertEquals(List.of(80.0), firedThresholds());
+
+        // Moving it to another category still re-arms the old one.
+        dao.updateExpense(new Expense(dinner, "dinner", "Transport", 84, today));
+        dao.insertExpense(new Expense(0, "feast", "Food", 85, today));
+        assertEquals(List.of(80.0, 80.0), firedThresholds());
+    }
+
+    @Test
+    void reloadDuringDeliveryDoesNotCountTheEventTwice() {
+        // Registered first, so the engine's reload reads the row before its own event arrives.
+        dao.addListener(new ExpenseListener() {
+            @Override
+            public void expenseInserted(Expense e) {
+                engine.reload();
+            }
+        });
+        dao.addListener(engine);
+        dao.insertExpense(new Expense(0, "lunch", "Food", 90, today));
+        dao.insertExpense(new Expense(0, "coffee", "Food", 5, today));
+        assertEquals(95.0, monthlySpend());
+        assertEquals(List.of(80.0), firedThresholds());
+    }
+
+    @Test
+    void bulkImportReloadsInsteadOfApplyingDeltas() {
+        dao.addListener(engine);
+        dao.importExpenses(List.of(
+                new Expense(0, "a", "Food", 60, today),
+                new Expense(0, "b", "Food", 30, today),
+                new Expense(0, "old", "Food", 500, today.minusYears(1))), 2);
+        assertEquals(90.0, monthlySpend());
+        assertTrue(fired.isEmpty()); // batch callers ask evaluateAll instead
+    }
+}
@@ -0,0 +1,86 @@
+package com.tracker;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvExporterTest extends DatabaseTest {
+
+    @BeforeEach
+    void open() {
+        dao.insertExpense(new Expense(0, "lunch, with \"friends\"", "Food", 100, DAY));
+        dao.insertExpense(new Expense(0, "bus", "Transport", 20.5, DAY));
+        dao.insertExpense(new Expense(0, "dinner", "Food", 50, DAY.plusMonths(1)));
+        dao.insertExpense(new Expense(0, "old receipt", "Food", 7, null));
+    }
+
+    private static String field(String value) throws IOException {
+        StringWriter w = new StringWriter();
+        CsvExporter.writeField(w, value);
+        return w.toString();
+    }
+
+    @Test
+    void fieldsAreQuotedOnlyWhenNeeded() throws IOException {
+        assertEquals("plain", field("plain"));
+        assertEquals("\"a,b\"", field("a,b"));
+        assertEquals("\"say \"\"hi\"\"\"", field("say \"hi\""));
+        assertEquals("\"two\nlines\"", field("two\nlines"));
+        assertEquals("", field(null));
+    }
+
+    @Test
+    void filteredExportListsTheMatchingRows() throws IOException {
+        Path file = dir.resolve("march-food.csv");
+        List<long[]> updates = new ArrayList<>();
+        long rows = new CsvExporter(dao).range(DateRange.month(YearMonth.from(DAY))).category("Food")
+                .export(file, (done, total) -> updates.add(new long[]{done, total}));
+
+        assertEquals(1, rows);
+        assertEquals(CsvExporter.HEADER + "\r\n1,2024-03-15,\"lunch, with \"\"friends\"\"\",Food,100.0\r\n",
+                Files.readString(file));
+        assertArrayEquals(new long[]{1, 1}, updates.get(updates.size() - 1));
+    }
+
+    @Test
+    void gzippedExportImportsBackToTheSameTotals() throws IOException {
+        Path gz = dir.resolve("all.csv.gz");
+        assertEquals(4, new CsvExporter(dao).export(gz, null));
+
+        Path csv = dir.resolve("all.csv");
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(gz))) {
+            Files.write(csv, in.readAllBytes());
+        }
+        try (ConnectionPool other = open("copy.db")) {
+            ExpenseDAO copy = new ExpenseDAO(other, new AutoCategorizer());
+            copy.createTable();
+            ImportResult result = copy.importCsv(csv, 2);
+            assertEquals(4, result.getImported());
+            assertEquals(Map.of("Food", 157.0, "Transport", 20.5), copy.getCategoryTotals());
+            assertEquals(dao.getCategoryTotals(DateRange.month(YearMonth.from(DAY))),
+                    copy.getCategoryTotals(DateRange.month(YearMonth.from(DAY))));
+        }
+    }
+
+    @Test
+    void cancelledExportLeavesNoFile() {
+        Path file = dir.resolve("cancelled.csv");
+        CsvExporter exporter = new CsvExporter(dao);
+        exporter.cancel();
+        assertThrows(CancellationException.class, () -> exporter.export(file, null));
+        assertFalse(Files.exists(file));
+    }
+}
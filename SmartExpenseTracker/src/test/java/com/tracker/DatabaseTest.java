@@ -0,0 +1,41 @@
+package com.tracker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * DatabaseTest:
+ * Base for tests that need a database: a fresh file in a temporary directory, its
+ * pool and a migrated DAO with its own categorizer, closed after each test.
+ */
+abstract class DatabaseTest {
+    static final LocalDate DAY = LocalDate.of(2024, 3, 15);
+
+    @TempDir
+    Path dir;
+    ConnectionPool pool;
+    ExpenseDAO dao;
+
+    @BeforeEach
+    void openDatabase() {
+        pool = open("expenses.db");
+        dao = new ExpenseDAO(pool, new AutoCategorizer());
+        dao.createTable();
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        pool.close();
+    }
+
+    /**
+     * Another database file in the same directory; the caller closes it.
+     */
+    ConnectionPool open(String file) {
+        return new ConnectionPool("jdbc:sqlite:" + dir.resolve(file));
+    }
+}
@@ -0,0 +1,78 @@
+package com.tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpenseColumnsTest extends DatabaseTest {
+
+    private ExpenseColumns sample() {
+        ExpenseColumns columns = new ExpenseColumns(2); // forces the arrays to grow
+        columns.add(1, "Uber to work", "Transport", 250, DAY);
+        columns.add(2, "Swiggy dinner", "Food", 400, DAY);
+        columns.add(3, "café latte", "Food", 120, DAY.plusMonths(1));
+        columns.add(4, "uber home", "Transport", 90, null);
+        columns.add(5, null, null, 10, DAY);
+        return columns;
+    }
+
+    @Test
+    void rowsRoundTripThroughTheColumns() {
+        ExpenseColumns columns = sample();
+        assertEquals(5, columns.size());
+        Expense latte = columns.get(2);
+        assertEquals(3, latte.getId());
+        assertEquals("café latte", latte.getDescription());
+        assertEquals("Food", latte.getCategory());
+        assertEquals(120.0, latte.getAmount());
+        assertEquals(DAY.plusMonths(1), latte.getDate());
+        assertNull(columns.date(3));
+        assertEquals("", columns.description(4));
+        assertEquals("", columns.category(4));
+        assertEquals(3, columns.categories().size()); // Transport, Food and "" once each
+    }
+
+    @Test
+    void scansMatchTheirGroupByEquivalents() {
+        ExpenseColumns columns = sample();
+        DateRange march = DateRange.month(YearMonth.from(DAY));
+        assertEquals(870.0, columns.total());
+        assertEquals(660.0, columns.total(march));
+        assertEquals(520.0, columns.totalOf("Food"));
+        assertEquals(0.0, columns.totalOf("Rent"));
+        assertEquals(Map.of("Transport", 340.0, "Food", 520.0, "", 10.0), columns.totalsByCategory());
+        assertEquals(Map.of("Transport", 250.0, "Food", 400.0, "", 10.0), columns.totalsByCategory(march));
+    }
+
+    @Test
+    void filtersAndStatsComposeOverRowNumbers() {
+        ExpenseColumns columns = sample();
+        assertArrayEquals(new int[]{0, 3}, columns.descriptionContains("UBER"));
+        assertArrayEquals(new int[]{0, 1}, columns.filter(DateRange.month(YearMonth.from(DAY)), null, 100, 1000));
+        assertArrayEquals(new int[0], columns.filter(null, "Rent", 0, 1000));
+
+        int[] rows = columns.descriptionContains("uber", columns.filter(null, null, 100, Double.MAX_VALUE));
+        assertArrayEquals(new int[]{0}, rows);
+
+        Map<String, ExpenseColumns.CategorySummary> stats = columns.statsByCategory(columns.filter(null, null, 0, 1000));
+        assertEquals(new ExpenseColumns.CategorySummary(2, 520, 400), stats.get("Food"));
+        assertEquals(260.0, stats.get("Food").average());
+        assertEquals(3, stats.size());
+    }
+
+    @Test
+    void loadsTheSameRowsAsTheDatabaseTotals() {
+        dao.insertExpense(new Expense(0, "lunch", "Food", 100, DAY));
+        dao.insertExpense(new Expense(0, "bus", "Transport", 20, DAY));
+        dao.insertExpense(new Expense(0, "dinner", "Food", 50, DAY.plusMonths(1)));
+
+        ExpenseColumns all = dao.loadColumns(null, null);
+        assertEquals(dao.getCategoryTotals(), all.totalsByCategory());
+        DateRange march = DateRange.month(YearMonth.from(DAY));
+        assertEquals(dao.getCategoryTotals(march), dao.loadColumns(march, null).totalsByCategory());
+        assertEquals(Map.of("Food", 150.0), dao.loadColumns(null, "Food").totalsByCategory());
+    }
+}
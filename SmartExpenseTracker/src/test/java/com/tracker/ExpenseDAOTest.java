@@ -0,0 +1,122 @@
+package com.tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpenseDAOTest extends DatabaseTest {
+
+    @Test
+    void legacyRowsStayUndatedAndOutOfPeriods() throws SQLException {
+        try (ConnectionPool legacy = open("legacy.db")) {
+            try (PooledConnection c = legacy.writer(); Statement st = c.connection().createStatement()) {
+                st.execute("CREATE TABLE expenses (id INTEGER PRIMARY KEY AUTOINCREMENT, description TEXT, category TEXT, amount REAL)");
+                st.execute("INSERT INTO expenses(description, category, amount) VALUES ('old lunch', 'Food', 120), ('old bus', 'Transport', 30)");
+            }
+            ExpenseDAO dao = new ExpenseDAO(legacy, new AutoCategorizer());
+            dao.createTable();
+
+            List<Expense> all = dao.getAllExpenses();
+            assertEquals(2, all.size());
+            all.forEach(e -> assertNull(e.getDate(), e.getDescription()));
+            assertEquals(Map.of("Food", 120.0, "Transport", 30.0), dao.getCategoryTotals());
+            assertTrue(dao.getCategoryTotals(DateRange.currentMonth()).isEmpty());
+            assertNull(dao.getMonthSpan());
+
+            BudgetManager budgets = new BudgetManager(legacy);
+            budgets.setBudget("Food", 100);
+            BudgetEngine engine = new BudgetEngine(dao, budgets, BudgetRule.defaults());
+            assertTrue(engine.evaluateAll().isEmpty());
+        }
+    }
+
+    @Test
+    void triggersKeepTotalsAndRollupsInStep() {
+        int lunch = dao.insertExpense(new Expense(0, "lunch", "Food", 100, DAY));
+        dao.insertExpense(new Expense(0, "dinner", "Food", 50, DAY));
+        int bus = dao.insertExpense(new Expense(0, "bus", "Transport", 20, DAY.plusMonths(1)));
+
+        assertTotals(Map.of("Food", 150.0, "Transport", 20.0));
+        assertEquals(Map.of(DAY, Map.of("Food", 150.0)), dao.getDailyCategoryTotals(DateRange.month(YearMonth.from(DAY))));
+        assertEquals(Map.of(YearMonth.from(DAY), Map.of("Food", 150.0), YearMonth.from(DAY).plusMonths(1), Map.of("Transport", 20.0)),
+                dao.getMonthlyCategoryTotals(YearMonth.from(DAY), YearMonth.from(DAY).plusMonths(1)));
+
+        // Moving a row to another category and day moves it in every table.
+        assertTrue(dao.updateExpense(new Expense(lunch, "lunch", "Transport", 70, DAY.plusDays(1))));
+        assertTotals(Map.of("Food", 50.0, "Transport", 90.0));
+        assertEquals(Map.of(DAY, Map.of("Food", 50.0), DAY.plusDays(1), Map.of("Transport", 70.0)),
+                dao.getDailyCategoryTotals(DateRange.month(YearMonth.from(DAY))));
+
+        // The last row of a category removes its rollup rows.
+        dao.deleteExpense(bus);
+        assertTotals(Map.of("Food", 50.0, "Transport", 70.0));
+        assertEquals(Map.of(YearMonth.from(DAY), Map.of("Food", 50.0, "Transport", 70.0)),
+                dao.getMonthlyCategoryTotals(YearMonth.from(DAY), YearMonth.from(DAY).plusMonths(1)));
+        assertEquals(YearMonth.from(DAY), dao.getMonthSpan()[1]);
+    }
+
+    @Test
+    void bulkImportKeepsTotalsLikeSingleInserts() {
+        List<Expense> rows = List.of(
+                new Expense(0, "a", "Food", 10, DAY),
+                new Expense(0, "b", "Food", 5, DAY.minusDays(1)),
+                new Expense(0, "c", "Misc", 1, null));
+        ImportResult result = dao.importExpenses(rows, 2);
+        assertEquals(3, result.getImported());
+        assertTotals(Map.of("Food", 15.0, "Misc", 1.0));
+        assertEquals(3, dao.getExpenseCount());
+        assertEquals(Map.of(DAY.minusDays(1), Map.of("Food", 5.0), DAY, Map.of("Food", 10.0)),
+                dao.getDailyCategoryTotals(DateRange.month(YearMonth.from(DAY))));
+    }
+
+    @Test
+    void bulkImportReadsRowsOutsideTheWriterAndLearnsOnlyGivenCategories() {
+        AutoCategorizer categorizer = new AutoCategorizer();
+        ExpenseDAO importer = new ExpenseDAO(pool, categorizer);
+        List<Expense> given = List.of(
+                new Expense(0, "uber to office", "", 300, DAY),
+                new Expense(0, "mystery vendor", "Gifts", 40, DAY),
+                new Expense(0, "uber home", null, 200, DAY));
+        Iterable<Expense> rows = () -> given.stream().map(e -> {
+            assertEquals(0, pool.writerLeases() % 2, "row read while holding the writer");
+            return e;
+        }).iterator();
+
+        ImportResult result = importer.importExpenses(rows, 2);
+        assertEquals(3, result.getImported());
+        assertEquals(Map.of("Transport", 500.0, "Gifts", 40.0), importer.getCategoryTotals());
+        assertEquals("Gifts", categorizer.suggestCategory("mystery vendor"));
+        assertEquals(0.0, categorizer.suggestAmount("uber")); // its own suggestions are not learned
+    }
+
+    @Test
+    void rankedSearchPutsBestMatchesFirst() {
+        int longTrip = dao.insertExpense(new Expense(0, "uber ride to the airport with two bags and a stop", "Transport", 900, DAY));
+        int twice = dao.insertExpense(new Expense(0, "uber uber surge", "Transport", 300, DAY));
+        dao.insertExpense(new Expense(0, "lunch", "Food", 100, DAY));
+        int shortTrip = dao.insertExpense(new Expense(0, "uber home", "Transport", 200, DAY));
+
+        assertEquals(List.of(twice, shortTrip, longTrip), ids(dao.searchRanked("ub", 10)));
+        assertEquals(List.of(twice), ids(dao.searchRanked("uber", 1)));
+        assertTrue(dao.searchRanked("  ", 10).isEmpty());
+        // Paging stays in id order, so its cursor survives new rows.
+        assertEquals(List.of(longTrip, twice, shortTrip), ids(dao.getExpensesAfter("ub", 0, 10)));
+    }
+
+    private static List<Integer> ids(List<Expense> expenses) {
+        return expenses.stream().map(Expense::getId).toList();
+    }
+
+    // Reads category_totals itself, not the incrementally kept cache.
+    private void assertTotals(Map<String, Double> expected) {
+        dao.reloadCategoryTotals();
+        assertEquals(expected, dao.getCategoryTotals());
+    }
+}
@@ -0,0 +1,57 @@
+package com.tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeywordMatcherTest {
+
+    private static List<String> matches(KeywordMatcher m, String text) {
+        List<String> found = new ArrayList<>();
+        m.forEachMatch(text, found::add);
+        found.sort(null);
+        return found;
+    }
+
+    @Test
+    void findsEveryLivePatternAcrossLevels() {
+        KeywordMatcher m = new KeywordMatcher();
+        for (String p : List.of("uber", "ola", "swiggy", "zomato", "metro", "bus", "rent")) assertTrue(m.add(p));
+        assertFalse(m.add("uber"));
+        assertFalse(m.add(""));
+        assertEquals(7, m.size());
+        assertEquals(List.of("bus", "metro", "uber"), matches(m, "uber to metro, then bus"));
+    }
+
+    @Test
+    void removedPatternsStopMatching() {
+        KeywordMatcher m = new KeywordMatcher();
+        for (String p : List.of("uber", "ola", "swiggy", "zomato")) m.add(p);
+        assertTrue(m.remove("ola"));
+        assertFalse(m.remove("ola"));
+        assertFalse(m.contains("ola"));
+        assertEquals(List.of("swiggy"), matches(m, "swiggy via ola"));
+
+        // Merging levels must not carry the removed pattern back in.
+        for (String p : List.of("a1", "a2", "a3", "a4", "a5")) m.add(p);
+        assertEquals(List.of("a3"), matches(m, "ola a3"));
+    }
+
+    @Test
+    void readdedPatternMatchesOnce() {
+        KeywordMatcher m = new KeywordMatcher();
+        for (String p : List.of("uber", "ola", "swiggy", "zomato", "metro")) m.add(p);
+        m.remove("uber");
+        assertTrue(m.add("uber"));
+        assertEquals(List.of("uber"), matches(m, "uber"));
+
+        // Enough removals to force a rebuild, then add everything back.
+        for (String p : List.of("ola", "swiggy", "zomato", "metro")) m.remove(p);
+        for (String p : List.of("ola", "swiggy", "zomato", "metro")) assertTrue(m.add(p));
+        assertEquals(5, m.size());
+        assertEquals(List.of("metro", "ola", "swiggy", "uber", "zomato"), matches(m, "uber ola swiggy zomato metro"));
+    }
+}
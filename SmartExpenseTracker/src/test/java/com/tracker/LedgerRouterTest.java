@@ -0,0 +1,86 @@
+package com.tracker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerRouterTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 15);
+
+    @TempDir
+    Path dir;
+    private LedgerRouter router;
+
+    @BeforeEach
+    void open() {
+        router = new LedgerRouter(dir, 2, 2);
+    }
+
+    @AfterEach
+    void close() {
+        router.close();
+    }
+
+    private void add(String ledger, String category, double amount, LocalDate date) {
+        try (LedgerRouter.Ledger l = router.open(ledger)) {
+            l.dao().insertExpense(new Expense(0, "x", category, amount, date));
+        }
+    }
+
+    @Test
+    void namesMapToFilesInsideTheDirectory() {
+        assertEquals(dir.resolve("home.db"), router.fileOf("home"));
+        assertThrows(IllegalArgumentException.class, () -> router.fileOf("../outside"));
+        assertThrows(IllegalArgumentException.class, () -> router.open("a/b"));
+
+        add("work", "Travel", 10, DAY);
+        add("home", "Food", 10, DAY);
+        assertTrue(Files.exists(dir.resolve("home.db")));
+        assertEquals(List.of("home", "work"), router.ledgers());
+    }
+
+    @Test
+    void evictedLedgersStayOpenUntilReturned() {
+        LedgerRouter.Ledger held = router.open("a");
+        add("b", "Food", 1, DAY);
+        add("c", "Food", 1, DAY); // evicts "a", still borrowed
+        assertEquals(3, router.openCount());
+        held.dao().insertExpense(new Expense(0, "late", "Food", 5, DAY));
+
+        held.close();
+        assertEquals(2, router.openCount());
+        assertThrows(IllegalStateException.class, () -> held.pool().reader());
+        try (LedgerRouter.Ledger again = router.open("a")) {
+            assertEquals(5.0, again.dao().getCategoryTotals().get("Food"));
+        }
+    }
+
+    @Test
+    void totalsAddUpAcrossLedgers() {
+        add("home", "Food", 100, DAY);
+        add("home", "Rent", 900, DAY.minusMonths(1));
+        add("work", "Food", 40, DAY);
+        add("trip", "Travel", 300, DAY);
+
+        assertEquals(Map.of("Food", 140.0, "Rent", 900.0, "Travel", 300.0), router.getCategoryTotals(null));
+        assertEquals(Map.of("Food", 140.0, "Travel", 300.0), router.getCategoryTotals(DateRange.month(YearMonth.from(DAY))));
+        assertEquals(List.of("work", "home"),
+                List.copyOf(router.getCategoryTotalsByLedger(List.of("work", "home"), null).keySet()));
+    }
+
+    @Test
+    void aClosedRouterRefusesNewLedgers() {
+        router.close();
+        assertThrows(IllegalStateException.class, () -> router.open("home"));
+    }
+}
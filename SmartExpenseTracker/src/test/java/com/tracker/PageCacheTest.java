@@ -0,0 +1,181 @@
+package com.tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.tracker.PageCache.PAGE_SIZE;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The paging logic behind {@link PagedExpenseList}, without the JavaFX toolkit.
+ */
+class PageCacheTest {
+
+    /** Expenses 1..n in id order, recording the cursors asked for. */
+    private static class Rows implements PagedExpenseList.PageSource {
+        final List<Expense> rows = new ArrayList<>();
+        final List<Integer> cursors = new ArrayList<>();
+        int offsetLookups;
+
+        Rows(int n) {
+            for (int id = 1; id <= n; id++) rows.add(new Expense(id, "row " + id, "Food", id, null));
+        }
+
+        @Override
+        public int count() {
+            return rows.size();
+        }
+
+        @Override
+        public List<Expense> page(int afterId, int limit) {
+            cursors.add(afterId);
+            return rows.stream().filter(e -> e.getId() > afterId).limit(limit).toList();
+        }
+
+        @Override
+        public int idAtOffset(int offset) {
+            offsetLookups++;
+            return offset < rows.size() ? rows.get(offset).getId() : -1;
+        }
+    }
+
+    private static PageCache.Fetch fetch(PageCache cache, Rows source, int page) {
+        return cache.fetch(page, source, cache.generation());
+    }
+
+    @Test
+    void fullPagesGiveTheNextPageItsCursor() {
+        Rows source = new Rows(PAGE_SIZE * 2 + 50);
+        PageCache cache = new PageCache();
+        assertEquals(PageCache.Fetch.STORED, fetch(cache, source, 0));
+        assertEquals(PageCache.Fetch.STORED, fetch(cache, source, 1));
+        assertEquals(List.of(0, PAGE_SIZE), source.cursors);
+        assertEquals(0, source.offsetLookups);
+        assertEquals(PAGE_SIZE + 1, cache.get(1).get(0).getId());
+
+        // A page reached without its predecessor finds its cursor by offset.
+        PageCache other = new PageCache();
+        assertEquals(PageCache.Fetch.STORED, fetch(other, source, 2));
+        assertEquals(1, source.offsetLookups);
+        assertEquals(50, other.get(2).size());
+        assertEquals(2 * PAGE_SIZE + 1, other.get(2).get(0).getId());
+    }
+
+    @Test
+    void aPagePastTheLastRowIsGone() {
+        Rows source = new Rows(PAGE_SIZE - 10);
+        PageCache cache = new PageCache();
+        assertEquals(PageCache.Fetch.GONE, fetch(cache, source, 1));
+        assertNull(cache.get(1));
+        assertTrue(source.cursors.isEmpty());
+    }
+
+    @Test
+    void loadsFromAnOlderGenerationAreDropped() {
+        Rows source = new Rows(10);
+        PageCache cache = new PageCache();
+        int gen = cache.startLoad(0);
+        assertEquals(-1, cache.startLoad(0)); // already loading
+        cache.clear();
+        assertEquals(PageCache.Fetch.STALE, cache.fetch(0, source, gen));
+        assertNull(cache.get(0));
+
+        gen = cache.startLoad(0);
+        assertTrue(gen >= 0);
+        cache.loadFinished(0, gen);
+        assertEquals(gen, cache.startLoad(0));
+    }
+
+    @Test
+    void aStaleLoadFinishingKeepsTheNewerLoadsMarker() {
+        PageCache cache = new PageCache();
+        int stale = cache.startLoad(0);
+        cache.clear();
+        int current = cache.startLoad(0);
+        assertNotEquals(stale, current);
+        cache.loadFinished(0, stale);
+        assertEquals(-1, cache.startLoad(0)); // still loading under the new generation
+        cache.loadFinished(0, current);
+        assertEquals(current, cache.startLoad(0));
+    }
+
+    @Test
+    void updatesDuringARefreshKeepItsCount() {
+        Rows source = new Rows(10);
+        PageCache cache = new PageCache();
+        fetch(cache, source, 0);
+        int epoch = cache.clear(); // a refresh starts counting
+        int gen = cache.generation();
+        fetch(cache, source, 0);
+        assertNotNull(cache.update(new Expense(3, "edited", "Food", 3, null)));
+        assertEquals(epoch, cache.epoch()); // the pending count is still used
+        assertNotEquals(gen, cache.generation()); // but loads that may have missed the edit are not
+
+        cache.append(10, new Expense(11, "new", "Food", 11, null));
+        cache.remove(5);
+        assertEquals(epoch, cache.epoch());
+        assertNotEquals(epoch, cache.clear());
+    }
+
+    @Test
+    void onlyTheMostRecentlyUsedPagesStayCached() {
+        Rows source = new Rows(PAGE_SIZE * (PageCache.MAX_CACHED_PAGES + 4));
+        PageCache cache = new PageCache();
+        for (int page = 0; page < PageCache.MAX_CACHED_PAGES; page++) fetch(cache, source, page);
+        assertNotNull(cache.get(0)); // now the most recently used
+        for (int page = PageCache.MAX_CACHED_PAGES; page < PageCache.MAX_CACHED_PAGES + 4; page++) {
+            fetch(cache, source, page);
+        }
+        int cached = 0;
+        for (int page = 0; page < PageCache.MAX_CACHED_PAGES + 4; page++) {
+            if (cache.contains(page)) cached++;
+        }
+        assertEquals(PageCache.MAX_CACHED_PAGES, cached);
+        assertTrue(cache.contains(0));
+        assertFalse(cache.contains(1));
+    }
+
+    @Test
+    void patchesReportTheRowIndexAndPreviousRow() {
+        Rows source = new Rows(10);
+        PageCache cache = new PageCache();
+        fetch(cache, source, 0);
+        int gen = cache.generation();
+
+        Expense added = new Expense(11, "new", "Food", 11, null);
+        cache.append(10, added);
+        assertEquals(11, cache.get(0).size());
+        assertNotEquals(gen, cache.generation()); // loads in flight may have missed it
+
+        Expense edited = new Expense(3, "edited", "Food", 3, null);
+        assertEquals(new PageCache.Patch(2, source.rows.get(2)), cache.update(edited));
+        assertEquals("edited", cache.get(0).get(2).getDescription());
+        assertNull(cache.update(new Expense(99, "unknown", "Food", 1, null)));
+
+        PageCache.Patch removed = cache.remove(5);
+        assertEquals(4, removed.index());
+        assertEquals(5, removed.old().getId());
+        assertNull(cache.get(0)); // its rows shifted, so it is read again
+        assertNull(cache.remove(5));
+    }
+
+    @Test
+    void removingARowMovesLaterCursorsBackOne() {
+        Rows source = new Rows(PAGE_SIZE * 3);
+        PageCache cache = new PageCache();
+        for (int page = 0; page < 3; page++) fetch(cache, source, page);
+
+        cache.remove(10);
+        source.rows.remove(9);
+        source.cursors.clear();
+        fetch(cache, source, 0);
+        fetch(cache, source, 2);
+        // Page 2 now starts right after the old first row of page 2.
+        assertEquals(List.of(0, 2 * PAGE_SIZE + 1), source.cursors);
+        assertEquals(PAGE_SIZE + 1, cache.get(0).get(PAGE_SIZE - 1).getId());
+        assertEquals(2 * PAGE_SIZE + 2, cache.get(2).get(0).getId());
+        assertEquals(0, source.offsetLookups);
+    }
+}
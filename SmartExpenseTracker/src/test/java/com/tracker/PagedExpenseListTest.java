@@ -0,0 +1,159 @@
+package com.tracker;
+
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs on the JavaFX thread, so it is skipped where the toolkit cannot start (no
+ * display); headless runs can use Monocle, see the README.
+ */
+class PagedExpenseListTest {
+
+    @BeforeAll
+    static void startToolkit() {
+        boolean started;
+        try {
+            Platform.startup(() -> { });
+            started = true;
+        } catch (IllegalStateException alreadyRunning) {
+            started = true;
+        } catch (RuntimeException | LinkageError noDisplay) {
+            started = false;
+        }
+        assumeTrue(started, "JavaFX toolkit not available");
+        Platform.setImplicitExit(false);
+    }
+
+    /** Expenses 1..n in id order, counting the queries made. */
+    private static class Rows implements PagedExpenseList.PageSource {
+        final List<Expense> rows = new ArrayList<>();
+        final AtomicInteger counts = new AtomicInteger();
+        final AtomicInteger pages = new AtomicInteger();
+
+        Rows(int n) {
+            for (int id = 1; id <= n; id++) rows.add(new Expense(id, "row " + id, "Food", id, null));
+        }
+
+        @Override
+        public int count() {
+            counts.incrementAndGet();
+            return rows.size();
+        }
+
+        @Override
+        public List<Expense> page(int afterId, int limit) {
+            pages.incrementAndGet();
+            return rows.stream().filter(e -> e.getId() > afterId).limit(limit).toList();
+        }
+
+        @Override
+        public int idAtOffset(int offset) {
+            return offset < rows.size() ? rows.get(offset).getId() : -1;
+        }
+    }
+
+    // Runs on the FX thread after anything it has already queued, which with a
+    // same-thread loader includes every load started so far.
+    private static <T> T fx(Supplier<T> action) throws InterruptedException {
+        AtomicReference<T> result = new AtomicReference<>();
+        for (int round = 0; round < 3; round++) { // loads chain a few runLater hops
+            CountDownLatch done = new CountDownLatch(1);
+            int r = round;
+            Platform.runLater(() -> {
+                if (r == 2) result.set(action.get());
+                done.countDown();
+            });
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        }
+        return result.get();
+    }
+
+    private static PagedExpenseList loaded(Rows source) throws InterruptedException {
+        PagedExpenseList list = fx(() -> new PagedExpenseList(source, Runnable::run));
+        fx(() -> list.get(0));
+        return list;
+    }
+
+    @Test
+    void pagesLoadOnDemandAndTheNextOneIsPrefetched() throws InterruptedException {
+        Rows source = new Rows(PagedExpenseList.PAGE_SIZE * 2 + 50);
+        PagedExpenseList list = fx(() -> new PagedExpenseList(source, Runnable::run));
+        assertEquals(450, fx(list::size));
+        assertNull(fx(() -> list.get(0))); // requested, not loaded yet
+        assertEquals(1, fx(() -> list.get(0)).getId());
+        assertEquals(2, source.pages.get()); // page 0 and the prefetched page 1
+        assertEquals(201, fx(() -> list.get(200)).getId());
+        assertEquals(3, source.pages.get());
+        assertEquals(450, fx(() -> list.get(449)).getId());
+    }
+
+    @Test
+    void singleRowChangesPatchTheLoadedPages() throws InterruptedException {
+        Rows source = new Rows(10);
+        PagedExpenseList list = loaded(source);
+        List<Integer> changes = new ArrayList<>();
+        Expense added = new Expense(11, "new", "Food", 11, null);
+        Expense edited = new Expense(3, "edited", "Food", 3, null);
+        fx(() -> {
+            list.addListener((ListChangeListener<Expense>) c -> {
+                while (c.next()) changes.add(c.getFrom());
+            });
+            source.rows.add(added);
+            list.rowAppended(added);
+            source.rows.set(2, edited);
+            list.rowUpdated(edited);
+            return null;
+        });
+        assertEquals(11, fx(list::size));
+        assertEquals("edited", fx(() -> list.get(2)).getDescription());
+        assertEquals(11, fx(() -> list.get(10)).getId());
+        assertEquals(List.of(10, 2), changes);
+        assertEquals(1, source.pages.get());
+
+        // A removal shifts the rows after it, so their page is read again.
+        fx(() -> {
+            source.rows.remove(4);
+            list.rowRemoved(5);
+            return null;
+        });
+        assertEquals(10, fx(list::size));
+        assertEquals(List.of(10, 2, 4), changes);
+        assertNull(fx(() -> list.get(4)));
+        assertEquals(6, fx(() -> list.get(4)).getId());
+        assertEquals(2, source.pages.get());
+        assertEquals(1, source.counts.get());
+    }
+
+    @Test
+    void failedCountsReachTheErrorHandler() throws InterruptedException {
+        List<Throwable> errors = new ArrayList<>();
+        Rows broken = new Rows(5) {
+            @Override
+            public int count() {
+                throw new IllegalStateException("database locked");
+            }
+        };
+        fx(() -> {
+            PagedExpenseList list = new PagedExpenseList(new Rows(0), Runnable::run);
+            list.setOnLoadError(errors::add);
+            list.setSource(broken);
+            return null;
+        });
+        fx(() -> null);
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).getMessage().contains("database locked"));
+    }
+}
@@ -0,0 +1,102 @@
+package com.tracker;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StartupSnapshotTest extends DatabaseTest {
+    private BudgetManager budgets;
+    private CategorizerStore store;
+    private int firstId;
+
+    @BeforeEach
+    void open() throws IOException {
+        budgets = new BudgetManager(pool);
+        store = new CategorizerStore(pool);
+        firstId = dao.insertExpense(new Expense(0, "lunch", "Food", 120, DAY));
+        dao.insertExpense(new Expense(0, "bus", "Transport", 30, DAY));
+        budgets.setBudget("Food", 5000);
+        StartupSnapshot.write(dao, budgets, store, pool);
+    }
+
+    private long count(String counter) {
+        return Metrics.counter(counter).getCount();
+    }
+
+    @Test
+    void unchangedDatabaseIsServedFromTheSnapshot() {
+        StartupSnapshot snapshot = StartupSnapshot.read(pool);
+        assertNotNull(snapshot);
+        assertEquals(Map.of("Food", 120.0, "Transport", 30.0), snapshot.categoryTotals());
+        assertEquals(2, snapshot.expenseCount());
+        assertEquals(150.0, snapshot.totalAmount());
+        assertEquals(Map.of("Food", 5000.0), snapshot.budgets());
+        assertEquals(2, snapshot.firstPage().size());
+        assertEquals(DAY, snapshot.firstPage().get(0).getDate());
+    }
+
+    @Test
+    void insertMakesItStale() {
+        dao.insertExpense(new Expense(0, "coffee", "Food", 10, DAY));
+        assertStale();
+    }
+
+    @Test
+    void deleteMakesItStale() {
+        dao.deleteExpense(firstId);
+        assertStale();
+    }
+
+    @Test
+    void amountEditMakesItStale() {
+        dao.updateExpense(new Expense(firstId, "lunch", "Food", 121, DAY));
+        assertStale();
+    }
+
+    @Test
+    void budgetChangeMakesItStale() {
+        budgets.setBudget("Food", 6000);
+        assertStale();
+    }
+
+    @Test
+    void learnedPatternMakesItStale() {
+        AutoCategorizer categorizer = dao.getCategorizer();
+        categorizer.attach(store);
+        categorizer.learn("swiggy dinner", "Food", 300);
+        categorizer.flush();
+        assertStale();
+    }
+
+    @Test
+    void corruptFileIsIgnored() throws IOException {
+        Path file = StartupSnapshot.fileOf(pool);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+        long corrupt = count("snapshot.corrupt");
+        assertNull(StartupSnapshot.read(pool));
+        assertEquals(corrupt + 1, count("snapshot.corrupt"));
+    }
+
+    @Test
+    void rewrittenSnapshotIsValidAgain() throws IOException {
+        dao.insertExpense(new Expense(0, "coffee", "Food", 10, DAY));
+        StartupSnapshot.write(dao, budgets, store, pool);
+        StartupSnapshot snapshot = StartupSnapshot.read(pool);
+        assertNotNull(snapshot);
+        assertEquals(3, snapshot.expenseCount());
+    }
+
+    private void assertStale() {
+        long stale = count("snapshot.stale");
+        assertNull(StartupSnapshot.read(pool));
+        assertEquals(stale + 1, count("snapshot.stale"));
+    }
+}
@@ -0,0 +1,80 @@
+package com.tracker;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrackerCliTest extends DatabaseTest {
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @BeforeEach
+    void open() {
+        dao.insertExpense(new Expense(0, "lunch", "Food", 100, DAY));
+        dao.insertExpense(new Expense(0, "bus", "Transport", 20, DAY));
+        dao.insertExpense(new Expense(0, "dinner", "Food", 50, DAY.plusMonths(1)));
+    }
+
+    private int run(String... args) {
+        List<String> argv = new ArrayList<>(List.of("--db", dir.resolve("expenses.db").toString()));
+        argv.addAll(List.of(args));
+        TrackerCli cli = new TrackerCli(new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+        return cli.run(argv.toArray(String[]::new));
+    }
+
+    private List<String> lines() {
+        return out.toString(StandardCharsets.UTF_8).lines().map(String::strip).toList();
+    }
+
+    @Test
+    void totalsHonourThePeriodAndCategory() {
+        assertEquals(TrackerCli.OK, run("totals"));
+        assertEquals(List.of("Food                   150.00", "Transport               20.00", "TOTAL                  170.00"), lines());
+
+        out.reset();
+        assertEquals(TrackerCli.OK, run("totals", "--month", "2024-03", "--category", "Food"));
+        assertEquals(List.of("Food                   100.00", "TOTAL                  100.00"), lines());
+    }
+
+    @Test
+    void importedRowsShowUpInTotals() throws IOException {
+        Path csv = dir.resolve("in.csv");
+        Files.writeString(csv, "Description,Category,Amount,Date\nrent,Housing,900,2024-03-01\nbad row,Food,abc,\n");
+        assertEquals(TrackerCli.OK, run("import", csv.toString()));
+        assertTrue(lines().get(0).matches("Imported 1 rows \\(1 failed\\) in \\S+s, \\S+ rows/sec"), lines().get(0));
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("bad row"));
+
+        out.reset();
+        assertEquals(TrackerCli.OK, run("totals", "--category", "Housing"));
+        assertEquals(List.of("Housing                900.00", "TOTAL                  900.00"), lines());
+    }
+
+    @Test
+    void budgetCheckExitsWithTwoWhenOverBudget() {
+        assertEquals(TrackerCli.OK, run("budget", "set", "Food", "1000000"));
+        assertEquals(TrackerCli.OK, run("budget", "check"));
+        new BudgetManager(pool).setBudget("Food", 1);
+        dao.insertExpense(new Expense(0, "snack", "Food", 5, LocalDate.now()));
+        assertEquals(TrackerCli.OVER_BUDGET, run("budget", "check"));
+    }
+
+    @Test
+    void badArgumentsAreUsageErrors() {
+        assertEquals(TrackerCli.ERROR, run("frobnicate"));
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("Unknown command: frobnicate"));
+        assertEquals(TrackerCli.ERROR, run("totals", "--month", "March"));
+        assertEquals(TrackerCli.ERROR, run("totals", "--bogus"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.tracker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBufferTest extends DatabaseTest {
+
+    @Test
+    void flushWaitsForEveryAppendedRow() throws Exception {
+        try (WriteBuffer buffer = new WriteBuffer(dao, 50, Duration.ofMillis(5), WriteBuffer.Durability.NORMAL)) {
+            List<CompletableFuture<Integer>> acks = new ArrayList<>();
+            for (int i = 0; i < 120; i++) acks.add(buffer.append(new Expense(0, "row " + i, "Food", 1, DAY)));
+            buffer.flush();
+            assertEquals(0, buffer.pending());
+            for (CompletableFuture<Integer> ack : acks) assertTrue(ack.isDone() && ack.get() > 0);
+            assertEquals(120, dao.countExpenses(""));
+        }
+    }
+
+    @Test
+    void closeCommitsQueuedRowsAndRejectsNewOnes() throws Exception {
+        WriteBuffer buffer = new WriteBuffer(dao, 10, Duration.ofMillis(50), WriteBuffer.Durability.NORMAL);
+        List<CompletableFuture<Integer>> acks = new ArrayList<>();
+        for (int i = 0; i < 25; i++) acks.add(buffer.append(new Expense(0, "row " + i, "Food", 2, DAY)));
+        buffer.close();
+
+        for (CompletableFuture<Integer> ack : acks) assertTrue(ack.get(5, TimeUnit.SECONDS) > 0);
+        assertEquals(25, dao.countExpenses(""));
+        assertEquals(50.0, dao.getTotalAmount(""));
+        assertThrows(IllegalStateException.class, () -> buffer.append(new Expense(0, "late", "Food", 1, DAY)));
+        buffer.close(); // idempotent
+    }
+
+    @Test
+    void failedRowFailsOnlyItsOwnFuture() throws Exception {
+        try (PooledConnection c = pool.writer(); Statement st = c.connection().createStatement()) {
+            st.execute("CREATE TRIGGER reject_bad BEFORE INSERT ON expenses WHEN new.description = 'bad' "
+                    + "BEGIN SELECT RAISE(ABORT, 'bad row'); END");
+        }
+        try (WriteBuffer buffer = new WriteBuffer(dao)) {
+            CompletableFuture<Integer> good = buffer.append(new Expense(0, "good", "Food", 1, DAY));
+            CompletableFuture<Integer> bad = buffer.append(new Expense(0, "bad", "Food", 1, DAY));
+            CompletableFuture<Integer> after = buffer.append(new Expense(0, "good too", "Food", 1, DAY));
+            buffer.flush();
+
+            assertTrue(good.get() > 0);
+            assertTrue(after.get() > good.get());
+            ExecutionException e = assertThrows(ExecutionException.class, bad::get);
+            assertInstanceOf(SQLException.class, e.getCause());
+            assertEquals(2, dao.countExpenses(""));
+        }
+    }
+
+    @Test
+    @Timeout(value = 30, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+    void budgetReloadsRacingAppendsDoNotDeadlock() throws Exception {
+        BudgetManager budgets = new BudgetManager(pool);
+        budgets.setBudget("Food", 100);
+        BudgetEngine engine = new BudgetEngine(dao, budgets, BudgetRule.defaults());
+        dao.addListener(engine);
+        LocalDate today = LocalDate.now();
+
+        try (WriteBuffer buffer = new WriteBuffer(dao, 8, Duration.ofMillis(1), WriteBuffer.Durability.OFF)) {
+            AtomicBoolean done = new AtomicBoolean();
+            CompletableFuture<Void> reloads = CompletableFuture.runAsync(() -> {
+                while (!done.get()) engine.reload();
+            });
+            for (int i = 0; i < 2000; i++) buffer.append(new Expense(0, "row " + i, "Food", 1, today));
+            buffer.flush();
+            done.set(true);
+            reloads.get();
+        }
+
+        BudgetAlert monthly = engine.evaluateAll().stream()
+                .filter(a -> a.rule().period() == BudgetPeriod.MONTHLY)
+                .findFirst().orElseThrow();
+        assertEquals(2000.0, monthly.spent());
+    }
+}